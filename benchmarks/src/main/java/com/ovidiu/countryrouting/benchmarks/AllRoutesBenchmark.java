@@ -0,0 +1,47 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.routing.AllRoutesFinder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.ovidiu.countryrouting.benchmarks.BenchmarkData.*;
+
+/** The {@link AllRoutesFinder} engines on the DfsBenchmarkTest pairs (maxDepth 10, maxRoutes 1000). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllRoutesBenchmark {
+
+    public enum Engine { RECURSIVE, ITERATIVE, BITSET, MEET }
+
+    @Param({"RECURSIVE", "ITERATIVE", "BITSET", "MEET"})
+    public Engine engine;
+
+    private AllRoutesFinder finder;
+
+    @Setup
+    public void setUp() {
+        GraphBuilder graphBuilder = new GraphBuilder();
+        graphBuilder.init();
+        finder = new AllRoutesFinder(graphBuilder);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void findAllRoutes(Blackhole blackhole) {
+        for (String[] pair : ALL_ROUTES_PAIRS) {
+            blackhole.consume(switch (engine) {
+                case RECURSIVE -> finder.findAllRoutes(pair[0], pair[1], ALL_ROUTES_MAX_DEPTH, ALL_ROUTES_MAX_ROUTES);
+                case ITERATIVE -> finder.findAllRoutesIterative(pair[0], pair[1], ALL_ROUTES_MAX_DEPTH, ALL_ROUTES_MAX_ROUTES);
+                case BITSET -> finder.findAllRoutesBitset(pair[0], pair[1], ALL_ROUTES_MAX_DEPTH, ALL_ROUTES_MAX_ROUTES);
+                case MEET -> finder.findAllRoutesMeetInTheMiddle(pair[0], pair[1], ALL_ROUTES_MAX_DEPTH, ALL_ROUTES_MAX_ROUTES);
+            });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import java.util.List;
+
+/**
+ * Fixed inputs shared by all benchmarks. Changing any of these invalidates the baseline,
+ * so regenerate it with {@code --update-baseline} in the same commit.
+ */
+final class BenchmarkData {
+
+    /** Same pairs as DfsBenchmarkTest: mostly European, 3 to 8 hops apart. */
+    static final List<String[]> ALL_ROUTES_PAIRS = List.of(
+            new String[]{"CZE", "ITA"},
+            new String[]{"ESP", "FRA"},
+            new String[]{"NOR", "GRC"},
+            new String[]{"PRT", "ROU"},
+            new String[]{"DEU", "TUR"},
+            new String[]{"FIN", "ESP"},
+            new String[]{"SWE", "ITA"},
+            new String[]{"POL", "GRC"},
+            new String[]{"AUT", "NLD"},
+            new String[]{"BEL", "ROU"}
+    );
+
+    static final int ALL_ROUTES_MAX_DEPTH = 10;
+    static final int ALL_ROUTES_MAX_ROUTES = 1000;
+
+    /** Short and long routes, a cross-component pair and a one-way border. */
+    static final List<String[]> SHORTEST_PAIRS = List.of(
+            new String[]{"PRT", "CHN"},
+            new String[]{"ESP", "FRA"},
+            new String[]{"ZAF", "EGY"},
+            new String[]{"FRA", "VNM"},
+            new String[]{"CAN", "PAN"},
+            new String[]{"NOR", "SGP"},
+            new String[]{"BRA", "ARG"},
+            new String[]{"DEU", "USA"},
+            new String[]{"LKA", "CHN"},
+            new String[]{"MAR", "KOR"}
+    );
+
+    /** Inputs answered by the exact code and name maps. */
+    static final List<String> EXACT_INPUTS = List.of(
+            "DEU", "fr", "724", "SUI", "Germany", "italy", "United States", "Japan", "ARG", "Portugal"
+    );
+
+    /** Misspellings and partial names that go through the fuzzy matchers. */
+    static final List<String> FUZZY_INPUTS = List.of(
+            "Germny", "Frnace", "Itly", "Untied Kingdom", "Swizerland",
+            "Portgual", "Argentna", "Brazl", "Norwy", "Polnd"
+    );
+
+    /** Inputs that resolve to nothing, either rejected up front or after the fuzzy pass. */
+    static final List<String> GARBAGE_INPUTS = List.of(
+            "", "   ", "123456", "!!!", "qwertyuiop", "zzzz", "x", "asdfghjkl", "@@@@", "Nowhereland"
+    );
+
+    private BenchmarkData() {
+    }
+}
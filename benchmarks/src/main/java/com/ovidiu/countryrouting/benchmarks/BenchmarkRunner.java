@@ -0,0 +1,145 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Runs the benchmarks with the GC profiler and compares the results against a stored baseline.
+ * <p>
+ * Usage: {@code java -jar target/benchmarks.jar [regex...] [--update-baseline]
+ * [--baseline file] [--threshold 0.25]}. A benchmark regresses when its average time, or the
+ * bytes it allocates per operation, exceed the baseline by more than the threshold; the process
+ * then exits with status 1. Benchmarks missing from the baseline are reported, not failed.
+ */
+public final class BenchmarkRunner {
+
+    private static final Path DEFAULT_BASELINE = Paths.get("baseline", "jmh-baseline.json");
+    private static final Path RESULT_FILE = Paths.get("target", "jmh-result.json");
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    /** Allocation differences below this many bytes per operation are noise (TLAB refills, boxing). */
+    private static final double ALLOCATION_SLACK_BYTES = 256;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        List<String> includes = new ArrayList<>();
+        Path baseline = DEFAULT_BASELINE;
+        double threshold = 0.25;
+        boolean updateBaseline = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--update-baseline" -> updateBaseline = true;
+                case "--baseline" -> baseline = Paths.get(args[++i]);
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                default -> includes.add(args[i]);
+            }
+        }
+
+        Files.createDirectories(RESULT_FILE.getParent());
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE.toString());
+        if (includes.isEmpty()) {
+            // Kernel benchmarks of package-private classes live in those classes' packages
+            options.include("com\\.ovidiu\\.countryrouting\\..*Benchmark");
+        }
+        includes.forEach(options::include);
+
+        new Runner(options.build()).run();
+
+        if (updateBaseline) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            mergeIntoBaseline(baseline);
+            System.out.println("Baseline written to " + baseline);
+            return;
+        }
+
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + "; run with --update-baseline to create one");
+            return;
+        }
+
+        List<String> regressions = compare(readScores(baseline), readScores(RESULT_FILE), threshold);
+        if (!regressions.isEmpty()) {
+            System.out.println("Regressions against " + baseline + ":");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baseline);
+    }
+
+    static List<String> compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        List<String> regressions = new ArrayList<>();
+
+        current.forEach((key, score) -> {
+            Score before = baseline.get(key);
+            if (before == null) {
+                System.out.println("Not in baseline: " + key);
+                return;
+            }
+
+            if (score.time() > before.time() * (1 + threshold)) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s", key, before.time(), score.time(), score.unit()));
+            }
+            if (score.allocated() > before.allocated() * (1 + threshold) + ALLOCATION_SLACK_BYTES) {
+                regressions.add(String.format("%s: %.0f -> %.0f B/op", key, before.allocated(), score.allocated()));
+            }
+        });
+        return regressions;
+    }
+
+    /** Replace the baseline entries of the benchmarks that just ran; entries of the others are kept. */
+    static void mergeIntoBaseline(Path baseline) throws IOException {
+        Map<String, JsonNode> merged = new TreeMap<>();
+        if (Files.exists(baseline)) {
+            MAPPER.readTree(baseline.toFile()).forEach(result -> merged.put(key(result), result));
+        }
+        MAPPER.readTree(RESULT_FILE.toFile()).forEach(result -> merged.put(key(result), result));
+
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(baseline.toFile(), merged.values());
+    }
+
+    /** Scores of a JMH JSON result file, keyed by benchmark name and parameters. */
+    static Map<String, Score> readScores(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+
+        for (JsonNode result : MAPPER.readTree(file.toFile())) {
+            JsonNode primary = result.path("primaryMetric");
+            JsonNode allocated = result.path("secondaryMetrics").path(ALLOCATION).path("score");
+            scores.put(key(result), new Score(
+                    primary.path("score").asDouble(),
+                    primary.path("scoreUnit").asText(),
+                    allocated.asDouble(0)));
+        }
+        return scores;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+        result.path("params").fields().forEachRemaining(param ->
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+        return key.toString();
+    }
+
+    record Score(double time, String unit, double allocated) {
+    }
+
+    private BenchmarkRunner() {
+    }
+}
@@ -0,0 +1,102 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.routing.AllRoutesCacheEntry;
+import com.ovidiu.countryrouting.routing.AllRoutesCachePersistence;
+import com.ovidiu.countryrouting.routing.AllRoutesFinder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.ovidiu.countryrouting.benchmarks.BenchmarkData.*;
+
+/**
+ * Opening, looking up and closing the all-routes cache file, filled with the routes of the
+ * fixed pairs in both directions (20 entries, about 20k routes). Opening maps the file and
+ * replays an empty log, so it stays flat as the file grows; a lookup decodes one entry. A cache
+ * miss only queues its entry; closing after one writes its log line and compacts, the cost the
+ * writer thread pays. Uses temp files, never the service's cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachePersistenceBenchmark {
+
+    private Path dir;
+    private AllRoutesCachePersistence persistence;
+    private String lookupKey;
+    private AllRoutesCacheEntry lookupEntry;
+
+    @Setup
+    public void setUp() throws IOException {
+        GraphBuilder graphBuilder = new GraphBuilder();
+        CompiledGraph graph = graphBuilder.getGraph();
+        AllRoutesFinder finder = new AllRoutesFinder(graphBuilder);
+
+        dir = Files.createTempDirectory("all-routes-cache");
+        AllRoutesCachePersistence writer = open();
+        for (String[] pair : ALL_ROUTES_PAIRS) {
+            append(writer, finder, graph, pair[0], pair[1]);
+            append(writer, finder, graph, pair[1], pair[0]);
+        }
+        writer.close();
+
+        lookupKey = ALL_ROUTES_PAIRS.get(0)[0] + "->" + ALL_ROUTES_PAIRS.get(0)[1] + "@" + graph.versionTag();
+        persistence = open();
+        lookupEntry = persistence.lookup(lookupKey);
+    }
+
+    private AllRoutesCachePersistence open() {
+        AllRoutesCachePersistence opened = new AllRoutesCachePersistence(
+                dir.resolve("all-routes-cache.bin"), dir.resolve("all-routes-cache.log"), Duration.ZERO);
+        opened.load();
+        return opened;
+    }
+
+    private void append(AllRoutesCachePersistence writer, AllRoutesFinder finder, CompiledGraph graph,
+                        String origin, String destination) {
+        List<List<String>> routes = finder.findAllRoutesBitset(origin, destination, ALL_ROUTES_MAX_DEPTH, ALL_ROUTES_MAX_ROUTES);
+        writer.append(origin + "->" + destination + "@" + graph.versionTag(),
+                new AllRoutesCacheEntry(ALL_ROUTES_MAX_DEPTH, ALL_ROUTES_MAX_ROUTES, routes));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        persistence.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public int load() {
+        return open().size();
+    }
+
+    @Benchmark
+    public AllRoutesCacheEntry lookup() {
+        return persistence.lookup(lookupKey);
+    }
+
+    @Benchmark
+    public int appendAndClose() {
+        AllRoutesCachePersistence writer = open();
+        writer.append(lookupKey, lookupEntry);
+        writer.close();
+        return writer.size();
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.routing.RouteFinder;
+import com.ovidiu.countryrouting.routing.ShortestPathEngine;
+import com.ovidiu.countryrouting.utils.CountryBorderMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+
+/** Wires the services by hand, the way Spring would, without starting a context. */
+final class Fixtures {
+
+    static CountryCodeResolver resolver() {
+        return resolver(10_000);
+    }
+
+    /** A resolver whose cache size would normally come from routing.resolver.cache-size. */
+    static CountryCodeResolver resolver(long cacheSize) {
+        CountryCodeResolver resolver = new CountryCodeResolver(new CountryBorderMapper());
+        set(resolver, "cacheSize", cacheSize);
+        try {
+            resolver.extractData();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return resolver;
+    }
+
+    /** A RouteFinder whose engine would normally come from routing.shortest-path.engine. */
+    static RouteFinder routeFinder(GraphBuilder graphBuilder, ShortestPathEngine engine) {
+        RouteFinder finder = new RouteFinder(graphBuilder, new CountryCodeResolver(new CountryBorderMapper()));
+        set(finder, "shortestPathEngine", engine);
+        return finder;
+    }
+
+    private static void set(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Fixtures() {
+    }
+}
@@ -0,0 +1,38 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing borders.json, and compiling it into CSR arrays plus the all-pairs table. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBuildBenchmark {
+
+    private GraphBuilder graphBuilder;
+    private Map<String, List<String>> adjacency;
+
+    @Setup
+    public void setUp() {
+        graphBuilder = new GraphBuilder();
+        adjacency = graphBuilder.buildGraph();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> buildGraph() {
+        return graphBuilder.buildGraph();
+    }
+
+    @Benchmark
+    public CompiledGraph compile() {
+        return CompiledGraph.compile(adjacency);
+    }
+}
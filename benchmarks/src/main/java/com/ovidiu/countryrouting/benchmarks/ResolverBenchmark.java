@@ -0,0 +1,49 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CountryCodeResolver#resolve} per kind of input; each set has 10 inputs. With a cache,
+ * every fuzzy input after the first invocation is a cache hit; without one, every call scans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolverBenchmark {
+
+    @Param({"EXACT", "FUZZY", "GARBAGE"})
+    public String inputs;
+
+    @Param({"0", "10000"})
+    public long cacheSize;
+
+    private CountryCodeResolver resolver;
+    private List<String> dataset;
+
+    @Setup
+    public void setUp() {
+        resolver = Fixtures.resolver(cacheSize);
+        dataset = switch (inputs) {
+            case "EXACT" -> BenchmarkData.EXACT_INPUTS;
+            case "FUZZY" -> BenchmarkData.FUZZY_INPUTS;
+            case "GARBAGE" -> BenchmarkData.GARBAGE_INPUTS;
+            default -> throw new IllegalArgumentException("Unknown input set: " + inputs);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void resolve(Blackhole blackhole) {
+        for (String input : dataset) {
+            blackhole.consume(resolver.resolve(input));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ovidiu.countryrouting.benchmarks;
+
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.routing.RouteFinder;
+import com.ovidiu.countryrouting.routing.ShortestPathEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** {@link RouteFinder#findShortestRoute} over the fixed pairs, once per engine. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortestRouteBenchmark {
+
+    @Param({"TABLE", "TREE", "BFS", "BIDIRECTIONAL"})
+    public ShortestPathEngine engine;
+
+    private RouteFinder finder;
+
+    @Setup
+    public void setUp() {
+        GraphBuilder graphBuilder = new GraphBuilder();
+        graphBuilder.init();
+        finder = Fixtures.routeFinder(graphBuilder, engine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void findShortestRoute(Blackhole blackhole) {
+        for (String[] pair : BenchmarkData.SHORTEST_PAIRS) {
+            blackhole.consume(finder.findShortestRoute(pair[0], pair[1]));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ovidiu.countryrouting.fuzzymatching;
+
+import com.ovidiu.countryrouting.utils.CountryBorderMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edit distance from one fuzzy input to every country name: the resolver's former
+ * {@code int[][]} Levenshtein against {@link MyersEditDistance}, unbounded and with the bound the
+ * resolver uses for a name without bonuses. Each operation scans all names for one input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EditDistanceBenchmark {
+
+    private static final List<String> INPUTS = List.of(
+            "GERMNY", "FRNACE", "ITLY", "SWIZERLAND", "PORTGUAL",
+            "ARGENTNA", "BRAZL", "NORWY", "POLND", "SPN"
+    );
+
+    /** Bound of {@link CountryCodeResolver#scoreNameMatch} when no bonus applies. */
+    private static final int BOUND = (120 - CountryCodeResolver.MIN_SCORE) / 10;
+
+    @Param({"LEVENSHTEIN", "MYERS", "MYERS_BOUNDED"})
+    public String kernel;
+
+    private String[] names;
+    private MyersEditDistance[] patterns;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> all = new ArrayList<>();
+        new CountryBorderMapper().loadAndTransform().values()
+                .forEach(compact -> compact.getNames().forEach(name -> all.add(name.toUpperCase(Locale.ROOT))));
+        names = all.toArray(String[]::new);
+        patterns = INPUTS.stream().map(MyersEditDistance::new).toArray(MyersEditDistance[]::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void allNames(Blackhole blackhole) {
+        for (MyersEditDistance pattern : patterns) {
+            int sum = 0;
+            for (String name : names) {
+                sum += switch (kernel) {
+                    case "LEVENSHTEIN" -> levenshtein(pattern.pattern(), name);
+                    case "MYERS" -> pattern.distance(name);
+                    default -> pattern.distance(name, BOUND);
+                };
+            }
+            blackhole.consume(sum);
+        }
+    }
+
+    /** The resolver's full-matrix implementation before {@link MyersEditDistance}. */
+    private static int levenshtein(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+
+        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(
+                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
+                        dp[i - 1][j - 1] + cost
+                );
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+}
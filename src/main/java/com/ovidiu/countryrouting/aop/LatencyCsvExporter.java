@@ -0,0 +1,93 @@
+package com.ovidiu.countryrouting.aop;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the latency summaries to {@code routing.metrics.csv-file} from the scheduler thread,
+ * replacing the file atomically, and once more on shutdown. Nothing is written when no call
+ * was recorded since the last flush. The export is off by default (blank file name); the
+ * historical {@code dfs-benchmark.csv} of per-call timings has another schema and is never touched.
+ */
+@Slf4j
+@Component
+public class LatencyCsvExporter {
+
+    static final String HEADER = "method,tags,count,p50Us,p95Us,p99Us,maxUs\n";
+
+    private final LatencyRecorder recorder;
+
+    @Value("${routing.metrics.csv-file:}")
+    private String csvFile = "";
+
+    private long flushedCount = -1;
+
+    @Autowired
+    public LatencyCsvExporter(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${routing.metrics.csv-flush-interval-ms:10000}")
+    public synchronized void flush() {
+        if (csvFile == null || csvFile.isBlank()) {
+            return;
+        }
+
+        List<LatencyRecorder.Series> series = recorder.snapshot();
+        long count = series.stream().mapToLong(s -> s.histogram().count()).sum();
+        if (count == flushedCount) {
+            return;
+        }
+
+        try {
+            Path target = Paths.get(csvFile).toAbsolutePath();
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Files.writeString(temp, toCsv(series));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            flushedCount = count;
+        } catch (IOException e) {
+            log.error("Failed to write latency summary to {}", csvFile, e);
+        }
+    }
+
+    static String toCsv(List<LatencyRecorder.Series> series) {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (LatencyRecorder.Series s : series) {
+            LatencyHistogram.Snapshot histogram = s.histogram();
+            csv.append(s.method()).append(',')
+                    .append(tags(s.tags())).append(',')
+                    .append(histogram.count()).append(',')
+                    .append(micros(histogram.percentile(0.5))).append(',')
+                    .append(micros(histogram.percentile(0.95))).append(',')
+                    .append(micros(histogram.percentile(0.99))).append(',')
+                    .append(micros(histogram.max())).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /** {@code maxDepth=10;maxRoutes=1000}, so the column needs no CSV quoting. */
+    private static String tags(Map<String, String> tags) {
+        return tags.entrySet().stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue().replaceAll("[,;\"\\r\\n]", "_"))
+                .collect(Collectors.joining(";"));
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e3);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ovidiu.countryrouting.aop;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One {@link LatencyHistogram} per method and tag values.
+ * <p>
+ * Tags come from method arguments, so their number of distinct values is up to the callers;
+ * after {@code routing.metrics.max-series-per-method} series a method records every new tag
+ * combination under {@value #OVERFLOW} instead of growing without bound.
+ */
+@Component
+public class LatencyRecorder {
+
+    static final String OVERFLOW = "other";
+
+    static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    @Value("${routing.metrics.max-series-per-method:100}")
+    private int maxSeriesPerMethod = 100;
+
+    private final ConcurrentMap<String, ConcurrentMap<List<String>, LatencyHistogram>> histograms =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String[]> tagNamesByMethod = new ConcurrentHashMap<>();
+
+    /**
+     * Record one call of {@code method}. {@code tagNames} and {@code tagValues} are parallel;
+     * a method must always be recorded with the same tag names.
+     */
+    public void record(String method, String[] tagNames, List<String> tagValues, long nanos) {
+        ConcurrentMap<List<String>, LatencyHistogram> series = histograms.get(method);
+        if (series == null) {
+            tagNamesByMethod.putIfAbsent(method, tagNames);
+            series = histograms.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        }
+
+        LatencyHistogram histogram = series.get(tagValues);
+        if (histogram == null) {
+            List<String> key = series.size() < maxSeriesPerMethod
+                    ? tagValues
+                    : Collections.nCopies(tagNames.length, OVERFLOW);
+            histogram = series.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /** Snapshots of every series, sorted by method and tag values. */
+    public List<Series> snapshot() {
+        List<Series> result = new ArrayList<>();
+        histograms.forEach((method, series) -> {
+            String[] tagNames = tagNamesByMethod.getOrDefault(method, new String[0]);
+            series.forEach((tagValues, histogram) -> {
+                Map<String, String> tags = new LinkedHashMap<>();
+                for (int i = 0; i < tagNames.length; i++) {
+                    tags.put(tagNames[i], tagValues.get(i));
+                }
+                result.add(new Series(method, tags, histogram.snapshot()));
+            });
+        });
+        result.sort(Comparator.comparing(Series::method).thenComparing(s -> s.tags().toString()));
+        return result;
+    }
+
+    /** All series as a Prometheus summary, in seconds, in the text exposition format. */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP method_latency_seconds Latency of @TrackExecutionTime methods\n");
+        out.append("# TYPE method_latency_seconds summary\n");
+
+        List<Series> all = snapshot();
+        for (Series series : all) {
+            LatencyHistogram.Snapshot s = series.histogram();
+            for (double quantile : QUANTILES) {
+                line(out, "method_latency_seconds", series, quantile, seconds(s.percentile(quantile)));
+            }
+            line(out, "method_latency_seconds_sum", series, -1, seconds(s.sum()));
+            line(out, "method_latency_seconds_count", series, -1, Long.toString(s.count()));
+        }
+
+        out.append("# HELP method_latency_seconds_max Slowest call of @TrackExecutionTime methods\n");
+        out.append("# TYPE method_latency_seconds_max gauge\n");
+        for (Series series : all) {
+            line(out, "method_latency_seconds_max", series, -1, seconds(series.histogram().max()));
+        }
+        return out.toString();
+    }
+
+    private static void line(StringBuilder out, String name, Series series, double quantile, String value) {
+        out.append(name).append("{method=\"").append(escape(series.method())).append('"');
+        series.tags().forEach((tag, tagValue) ->
+                out.append(',').append(tag).append("=\"").append(escape(tagValue)).append('"'));
+        if (quantile >= 0) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public record Series(String method, Map<String, String> tags, LatencyHistogram.Snapshot histogram) {
+    }
+}
@@ -1,63 +1,77 @@
 package com.ovidiu.countryrouting.aop;
 
-import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.lang.reflect.Method;
-import java.nio.file.*;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-@Slf4j
+/**
+ * Times {@link TrackExecutionTime} methods into the {@link LatencyRecorder}. The request thread
+ * only reads the clock twice and bumps a few counters; the metric name and the positions of the
+ * tag arguments are resolved once per method.
+ */
 @Aspect
 @Component
 public class TimingAspect {
 
-    private final Path output = Paths.get("dfs-benchmark.csv");
+    private final LatencyRecorder recorder;
 
-    public TimingAspect() {
-        try {
-            if (!Files.exists(output)) {
-                Files.writeString(output, "method,args,durationMs\n",
-                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-            }
-        } catch (IOException e) {
-            log.error("Failed to initialize benchmark CSV file", e);
-        }
+    private final ConcurrentMap<Method, TimedMethod> timedMethods = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TimingAspect(LatencyRecorder recorder) {
+        this.recorder = recorder;
     }
 
     @Around("@annotation(com.ovidiu.countryrouting.aop.TrackExecutionTime)")
     public Object measure(ProceedingJoinPoint pjp) throws Throwable {
-
         MethodSignature signature = (MethodSignature) pjp.getSignature();
-        Method methodObj = signature.getMethod();
-        TrackExecutionTime annotation = methodObj.getAnnotation(TrackExecutionTime.class);
+        TimedMethod timed = timedMethods.computeIfAbsent(signature.getMethod(), m -> TimedMethod.of(signature));
 
         long start = System.nanoTime();
-        Object result = pjp.proceed();
-        long end = System.nanoTime();
-
-        long durationMs = (end - start) / 1_000_000;
+        try {
+            return pjp.proceed();
+        } finally {
+            recorder.record(timed.name(), timed.tagNames(), timed.tagValues(pjp.getArgs()), System.nanoTime() - start);
+        }
+    }
 
-        String method = signature.toShortString();
-        String args = annotation.includeArgs()
-                ? Arrays.toString(pjp.getArgs())
-                : "";
+    private record TimedMethod(String name, String[] tagNames, int[] argIndices) {
 
-        log.info("Execution of {} took {} ms", method, durationMs);
+        static TimedMethod of(MethodSignature signature) {
+            Method method = signature.getMethod();
+            String[] tagNames = method.getAnnotation(TrackExecutionTime.class).tags();
+            List<String> parameterNames = Arrays.asList(signature.getParameterNames());
 
-        // Write to CSV
-        try {
-            String line = method + "," + args + "," + durationMs + "\n";
-            Files.writeString(output, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } catch (IOException e) {
-            log.error("Failed to write benchmark entry", e);
+            int[] argIndices = new int[tagNames.length];
+            for (int i = 0; i < tagNames.length; i++) {
+                argIndices[i] = parameterNames.indexOf(tagNames[i]);
+                if (argIndices[i] < 0) {
+                    throw new IllegalStateException("@TrackExecutionTime tag '" + tagNames[i]
+                            + "' is not a parameter of " + signature.toShortString());
+                }
+            }
+            return new TimedMethod(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                    tagNames, argIndices);
         }
 
-        return result;
+        List<String> tagValues(Object[] args) {
+            if (argIndices.length == 0) {
+                return List.of();
+            }
+            String[] values = new String[argIndices.length];
+            for (int i = 0; i < argIndices.length; i++) {
+                values[i] = String.valueOf(args[argIndices[i]]);
+            }
+            return Arrays.asList(values);
+        }
     }
 }
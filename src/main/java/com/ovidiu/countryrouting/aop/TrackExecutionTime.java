@@ -2,8 +2,13 @@ package com.ovidiu.countryrouting.aop;
 
 import java.lang.annotation.*;
 
+/**
+ * Record the latency of every call into a {@link LatencyHistogram}, exposed on {@code /metrics}.
+ * {@link #tags()} names parameters whose values split the method into separate series,
+ * e.g. {@code @TrackExecutionTime(tags = "maxDepth")}; keep them low-cardinality.
+ */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface TrackExecutionTime {
-    boolean includeArgs() default false;
+    String[] tags() default {};
 }
@@ -0,0 +1,80 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.ovidiu.countryrouting.jfr.FlightRecorderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/jfr")
+@Tag(name = "Flight Recorder", description = "On-demand JFR recordings with the routing events")
+public class FlightRecorderController {
+
+    private final FlightRecorderService flightRecorder;
+
+    @Autowired
+    public FlightRecorderController(FlightRecorderService flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    @GetMapping
+    @Operation(summary = "State of the current recording")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(flightRecorder.status());
+    }
+
+    @PostMapping("/start")
+    @Operation(summary = "Start a recording", description = "Keeps the last maxAgeSeconds of events")
+    public ResponseEntity<?> start(@RequestParam(defaultValue = "600") long maxAgeSeconds) throws Exception {
+        if (maxAgeSeconds <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "maxAgeSeconds must be positive"));
+        }
+
+        try {
+            return ResponseEntity.ok(flightRecorder.start(Duration.ofSeconds(maxAgeSeconds)));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @PostMapping("/dump")
+    @Operation(summary = "Download the recording so far", description = "Open the .jfr file in JDK Mission Control or `jfr print`")
+    public ResponseEntity<?> dump() throws Exception {
+        try {
+            byte[] jfr = flightRecorder.dump();
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename("country-routing-" + Instant.now().getEpochSecond() + ".jfr")
+                            .build().toString())
+                    .body(jfr);
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @PostMapping("/stop")
+    @Operation(summary = "Stop the recording", description = "A stopped recording can still be dumped")
+    public ResponseEntity<?> stop() {
+        try {
+            return ResponseEntity.ok(flightRecorder.stop());
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/graph")
+@Tag(name = "Graph Admin", description = "Inspect and reload the border graph snapshot")
+public class GraphAdminController {
+
+    private final GraphBuilder graphBuilder;
+
+    @Autowired
+    public GraphAdminController(GraphBuilder graphBuilder) {
+        this.graphBuilder = graphBuilder;
+    }
+
+    @GetMapping
+    @Operation(summary = "Current graph snapshot")
+    public ResponseEntity<?> getSnapshot() {
+        return ResponseEntity.ok(describe(graphBuilder.getGraph()));
+    }
+
+    @PostMapping("/reload")
+    @Operation(summary = "Reload borders.json", description = "Parses and validates the dataset, then swaps it in atomically")
+    public ResponseEntity<?> reload() {
+        String previous = graphBuilder.getGraph().versionTag();
+
+        try {
+            CompiledGraph current = graphBuilder.reload();
+
+            return ResponseEntity.ok(Map.of(
+                    "previousVersion", previous,
+                    "version", current.versionTag(),
+                    "changed", !previous.equals(current.versionTag()),
+                    "countries", current.size(),
+                    "borders", current.edgeCount()
+            ));
+
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/components")
+    @Operation(summary = "Connected component of every country",
+            description = "Countries in different components have no land route between them")
+    public ResponseEntity<?> getComponents() {
+        CompiledGraph graph = graphBuilder.getGraph();
+
+        Map<String, Object> countries = new LinkedHashMap<>();
+        for (int node = 0; node < graph.size(); node++) {
+            countries.put(graph.code(node), component(graph, node));
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "version", graph.versionTag(),
+                "components", graph.componentCount(),
+                "countries", countries
+        ));
+    }
+
+    @GetMapping("/components/{country}")
+    @Operation(summary = "Connected component of one country")
+    public ResponseEntity<?> getComponent(@PathVariable String country) {
+        CompiledGraph graph = graphBuilder.getGraph();
+        int node = graph.id(country);
+
+        if (node < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Unknown country code"));
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("country", country);
+        body.putAll(component(graph, node));
+        return ResponseEntity.ok(body);
+    }
+
+    private Map<String, Object> component(CompiledGraph graph, int node) {
+        return Map.of(
+                "component", graph.component(node),
+                "size", graph.componentSize(node)
+        );
+    }
+
+    private Map<String, Object> describe(CompiledGraph graph) {
+        return Map.of(
+                "version", graph.versionTag(),
+                "countries", graph.size(),
+                "borders", graph.edgeCount()
+        );
+    }
+}
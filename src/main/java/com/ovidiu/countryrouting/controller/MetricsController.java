@@ -0,0 +1,33 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.ovidiu.countryrouting.aop.LatencyRecorder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Metrics", description = "Latency of the tracked routing methods")
+public class MetricsController {
+
+    static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    private final LatencyRecorder recorder;
+
+    @Autowired
+    public MetricsController(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @GetMapping("/metrics")
+    @Operation(summary = "Prometheus scrape endpoint",
+            description = "p50/p95/p99, count, sum and max per @TrackExecutionTime method and tag values")
+    public ResponseEntity<String> scrape() {
+        return ResponseEntity.ok()
+                .contentType(PROMETHEUS_TEXT)
+                .body(recorder.scrape());
+    }
+}
@@ -0,0 +1,58 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ovidiu.countryrouting.routing.RouteStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Writes a {@link RouteStream} as newline-delimited JSON, one route array per line.
+ * <p>
+ * Every line is flushed as soon as the search emits it. Writes block while the client is
+ * not reading, which pauses the search with them; once the client goes away the failed
+ * write stops the search instead of enumerating into a closed socket.
+ */
+@Slf4j
+final class NdjsonRoutes {
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private NdjsonRoutes() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> ok(RouteStream routes) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(out -> write(routes, out));
+    }
+
+    static ResponseEntity<StreamingResponseBody> badRequest(String error) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> MAPPER.writeValue(out, Map.of("error", error)));
+    }
+
+    private static void write(RouteStream routes, OutputStream out) {
+        int[] written = {0};
+        routes.forEachRoute(route -> {
+            try {
+                out.write(MAPPER.writeValueAsBytes(route));
+                out.write('\n');
+                out.flush();
+                written[0]++;
+                return true;
+            } catch (IOException e) {
+                log.debug("Client stopped reading after {} routes: {}", written[0], e.getMessage());
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/resolver")
+@Tag(name = "Resolver Admin", description = "Inspect the resolution cache and reload the country dataset")
+public class ResolverAdminController {
+
+    private final CountryCodeResolver resolver;
+
+    @Autowired
+    public ResolverAdminController(CountryCodeResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    @GetMapping("/cache")
+    @Operation(summary = "Resolution cache statistics",
+            description = "Fuzzy resolutions (hits and misses) cached since the dataset was last loaded")
+    public ResponseEntity<?> getCacheStats() {
+        CacheStats stats = resolver.cacheStats();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", resolver.cacheSize());
+        body.put("hits", stats.hitCount());
+        body.put("misses", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictions", stats.evictionCount());
+        body.put("averageLoadMicros", stats.averageLoadPenalty() / 1e3);
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/reload")
+    @Operation(summary = "Reload countries.json", description = "Rebuilds the lookup tables and starts an empty resolution cache")
+    public ResponseEntity<?> reload() {
+        try {
+            resolver.extractData();
+            return ResponseEntity.ok(Map.of("reloaded", true));
+
+        } catch (IOException | IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.ovidiu.countryrouting.controller;
 
 import com.ovidiu.countryrouting.routing.AllRoutesFinder;
+import com.ovidiu.countryrouting.routing.RouteStream;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -68,4 +72,114 @@ public class RouteExplorationController {
                     .body(Map.of("error", ex.getMessage()));
         }
     }
+
+    @GetMapping("/bitset/{origin}/{destination}")
+    public ResponseEntity<?> getAllRoutesBitset(
+            @PathVariable String origin,
+            @PathVariable String destination,
+            @RequestParam(defaultValue = "10") int maxDepth,
+            @RequestParam(defaultValue = "10") int maxRoutes
+    ) {
+        try {
+            List<List<String>> routes = allRoutesFinder.findAllRoutesBitset(
+                    origin, destination, maxDepth, maxRoutes
+            );
+
+            if (routes.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No land routes found"));
+            }
+
+            return ResponseEntity.ok(Map.of("routes", routes));
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/meet/{origin}/{destination}")
+    public ResponseEntity<?> getAllRoutesMeetInTheMiddle(
+            @PathVariable String origin,
+            @PathVariable String destination,
+            @RequestParam(defaultValue = "15") int maxDepth,
+            @RequestParam(defaultValue = "10") int maxRoutes
+    ) {
+        try {
+            List<List<String>> routes = allRoutesFinder.findAllRoutesMeetInTheMiddle(
+                    origin, destination, maxDepth, maxRoutes
+            );
+
+            if (routes.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "No land routes found"));
+            }
+
+            return ResponseEntity.ok(Map.of("routes", routes));
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    /** Route counts per number of border crossings, without building any route. */
+    @GetMapping("/count/{origin}/{destination}")
+    @Operation(summary = "Count routes per length",
+            description = "Counts every simple route up to maxDepth border crossings. Counting has no maxRoutes "
+                    + "to stop it early, so maxDepth is capped (routing.all-routes.count-max-depth, default 18); "
+                    + "deeper requests get 400")
+    public ResponseEntity<?> countAllRoutes(
+            @PathVariable String origin,
+            @PathVariable String destination,
+            @RequestParam(defaultValue = "10") int maxDepth
+    ) {
+        try {
+            long[] counts = allRoutesFinder.countRoutes(origin, destination, maxDepth);
+
+            long total = 0;
+            Map<Integer, Long> byLength = new LinkedHashMap<>();
+            for (int hops = 0; hops < counts.length; hops++) {
+                if (counts[hops] > 0) {
+                    byLength.put(hops, counts[hops]);
+                    total += counts[hops];
+                }
+            }
+
+            return ResponseEntity.ok(Map.of(
+                    "origin", origin,
+                    "destination", destination,
+                    "maxDepth", maxDepth,
+                    "total", total,
+                    "byLength", byLength
+            ));
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    /**
+     * NDJSON variant of the bitset search: each route is written and flushed as soon as it is
+     * found, so the first line arrives long before a large {@code maxRoutes} is exhausted.
+     */
+    @GetMapping("/stream/{origin}/{destination}")
+    public ResponseEntity<StreamingResponseBody> streamAllRoutes(
+            @PathVariable String origin,
+            @PathVariable String destination,
+            @RequestParam(defaultValue = "10") int maxDepth,
+            @RequestParam(defaultValue = "10") int maxRoutes
+    ) {
+        try {
+            RouteStream routes = allRoutesFinder.streamAllRoutes(
+                    origin, destination, maxDepth, maxRoutes
+            );
+
+            return NdjsonRoutes.ok(routes);
+
+        } catch (IllegalArgumentException ex) {
+            return NdjsonRoutes.badRequest(ex.getMessage());
+        }
+    }
 }
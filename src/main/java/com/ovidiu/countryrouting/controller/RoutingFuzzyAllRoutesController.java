@@ -1,12 +1,14 @@
 package com.ovidiu.countryrouting.controller;
 
 import com.ovidiu.countryrouting.routing.RouteFinder;
+import com.ovidiu.countryrouting.routing.RouteStream;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -47,4 +49,22 @@ public class RoutingFuzzyAllRoutesController {
                     .body(Map.of("error", ex.getMessage()));
         }
     }
+
+    @GetMapping("/stream/{origin}/{destination}")
+    @Operation(summary = "Stream all land routes (fuzzy)", description = "NDJSON, one route per line, flushed as the search finds it")
+    public ResponseEntity<StreamingResponseBody> streamAllRoutes(@PathVariable String origin,
+                                                                 @PathVariable String destination,
+                                                                 @RequestParam(defaultValue = "10") int maxDepth,
+                                                                 @RequestParam(defaultValue = "50") int maxRoutes) {
+
+        try {
+            RouteStream routes =
+                    routeFinder.streamAllRoutesFuzzy(origin, destination, maxDepth, maxRoutes);
+
+            return NdjsonRoutes.ok(routes);
+
+        } catch (IllegalArgumentException ex) {
+            return NdjsonRoutes.badRequest(ex.getMessage());
+        }
+    }
 }
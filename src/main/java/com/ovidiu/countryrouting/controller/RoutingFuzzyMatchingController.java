@@ -1,8 +1,12 @@
 package com.ovidiu.countryrouting.controller;
 
+import com.ovidiu.countryrouting.routing.BatchRouteResult;
 import com.ovidiu.countryrouting.routing.RouteFinder;
+import com.ovidiu.countryrouting.routing.RoutePair;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +21,10 @@ public class RoutingFuzzyMatchingController {
 
     private final RouteFinder routeFinder;
 
+    /** Largest batch accepted by {@code POST /routing/fuzzy/batch}. */
+    @Value("${routing.batch.max-pairs:1000}")
+    private int maxBatchPairs = 1000;
+
     @Autowired
     public RoutingFuzzyMatchingController(RouteFinder routeFinder) {
         this.routeFinder = routeFinder;
@@ -41,4 +49,18 @@ public class RoutingFuzzyMatchingController {
                     .body(Map.of("error", ex.getMessage()));
         }
     }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Shortest land routes for many pairs",
+            description = "Results are returned in input order, with an error for each pair that has no route")
+    public ResponseEntity<?> getRoutes(@RequestBody List<RoutePair> pairs) {
+        if (pairs.size() > maxBatchPairs) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Too many pairs: " + pairs.size() + " (max " + maxBatchPairs + ")"));
+        }
+
+        List<BatchRouteResult> results = routeFinder.findShortestRoutesFuzzy(pairs);
+
+        return ResponseEntity.ok(Map.of("results", results));
+    }
 }
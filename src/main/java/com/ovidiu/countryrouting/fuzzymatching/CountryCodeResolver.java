@@ -1,31 +1,56 @@
 package com.ovidiu.countryrouting.fuzzymatching;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ovidiu.countryrouting.jfr.ResolveEvent;
 import com.ovidiu.countryrouting.utils.CountryBorderMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.text.Normalizer;
 import java.util.*;
-
+import java.util.stream.IntStream;
+
+/**
+ * Resolves country codes and (misspelled) names to CCA3 codes.
+ * <p>
+ * Everything derived from the dataset lives in one immutable {@link Dataset} that
+ * {@link #extractData()} builds and then swaps in, so lookups never see a half-loaded dataset.
+ * Each dataset carries its own cache of fuzzy resolutions, hits and misses alike, keyed on the
+ * normalized input: a reload starts with an empty cache, and a lookup that began on the old
+ * dataset can only fill the old cache.
+ */
 @Component
 public class CountryCodeResolver {
 
-    private final Map<String, String> exactCodeMap = new HashMap<>();
-    private final Map<String, String> exactNameMap = new HashMap<>();
-    private final List<String> allCca3Codes = new ArrayList<>();
-    private final Map<String, List<String>> namesByCca3 = new HashMap<>();
+    /** Fuzzy name and code scores below this never resolve. */
+    static final int MIN_SCORE = 60;
+
+    @Value("${routing.resolver.cache-size:10000}")
+    private long cacheSize = 10_000;
+
+    private volatile Dataset dataset;
 
     private final CountryBorderMapper mapper;
 
     @Autowired
     public CountryCodeResolver(CountryBorderMapper mapper) {
         this.mapper = mapper;
+        this.dataset = new Dataset(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new LinkedHashMap<>(), 0);
     }
 
-    /** Load and index all data from borders.json */
+    /** Load and index all data from borders.json, replacing the current dataset and its cache. */
     public void extractData() throws IOException {
         Map<String, CountryBorderMapper.CountryCompact> data = this.mapper.loadAndTransform();
 
+        Map<String, String> exactCodeMap = new HashMap<>();
+        Map<String, String> exactNameMap = new HashMap<>();
+        List<String> allCca3Codes = new ArrayList<>();
+        Map<String, List<String>> namesByCca3 = new HashMap<>();
+
         for (var entry : data.entrySet()) {
             String cca3 = entry.getKey();
             CountryBorderMapper.CountryCompact compact = entry.getValue();
@@ -33,48 +58,146 @@ public class CountryCodeResolver {
             allCca3Codes.add(cca3);
             namesByCca3.put(cca3, compact.getNames());
 
-            addExact(compact.getCca3(), cca3);
-            addExact(compact.getCca2(), cca3);
-            addExact(compact.getCcn3(), cca3);
-            addExact(compact.getCioc(), cca3);
+            addExact(exactCodeMap, compact.getCca3(), cca3);
+            addExact(exactCodeMap, compact.getCca2(), cca3);
+            addExact(exactCodeMap, compact.getCcn3(), cca3);
+            addExact(exactCodeMap, compact.getCioc(), cca3);
 
             for (String name : compact.getNames()) {
-                exactNameMap.put(name.toUpperCase(), cca3);
+                exactNameMap.put(normalize(name), cca3);
             }
         }
+
+        dataset = new Dataset(exactCodeMap, exactNameMap, allCca3Codes, namesByCca3, cacheSize);
+    }
+
+    /** Statistics of the current dataset's resolution cache, since the last {@link #extractData()}. */
+    public CacheStats cacheStats() {
+        return dataset.cache.stats();
     }
 
-    private void addExact(String code, String cca3) {
+    /** Resolutions currently cached (an estimate, like every Caffeine size). */
+    public long cacheSize() {
+        return dataset.cache.estimatedSize();
+    }
+
+    private static void addExact(Map<String, String> exactCodeMap, String code, String cca3) {
         if (code != null && !code.isBlank()) {
-            exactCodeMap.put(code.toUpperCase(), cca3);
+            exactCodeMap.put(normalize(code), cca3);
         }
     }
 
     /** Main resolver entry point */
     public String resolve(String input) {
+        ResolveEvent event = new ResolveEvent();
+        event.begin();
+
+        String match = resolve(input, event);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.input = input;
+            event.match = match;
+            event.commit();
+        }
+        return match;
+    }
+
+    private String resolve(String input, ResolveEvent event) {
         if (input == null) return null;
 
-        String normalized = input.trim().toUpperCase();
+        String normalized = normalize(input);
 
         // 0. Reject garbage early
+        event.stage = "GARBAGE";
         if (isGarbage(normalized)) return null;
 
+        Dataset data = dataset;
+
         // 1. Exact code match
-        if (exactCodeMap.containsKey(normalized)) {
-            return exactCodeMap.get(normalized);
+        event.stage = "EXACT_CODE";
+        if (data.exactCodeMap.containsKey(normalized)) {
+            return data.exactCodeMap.get(normalized);
         }
 
         // 2. Exact name match
-        if (exactNameMap.containsKey(normalized)) {
-            return exactNameMap.get(normalized);
+        event.stage = "EXACT_NAME";
+        if (data.exactNameMap.containsKey(normalized)) {
+            return data.exactNameMap.get(normalized);
         }
 
+        // Exact matches are already single map lookups; only the fuzzy stages are worth caching
+        event.stage = "CACHED";
+        return data.cache.get(normalized, key -> Optional.ofNullable(fuzzyMatch(data, key, event))).orElse(null);
+    }
+
+    private String fuzzyMatch(Dataset data, String normalized, ResolveEvent event) {
         // 3. Fuzzy name match (strongest)
-        String nameMatch = fuzzyMatchNames(normalized);
-        if (nameMatch != null) return nameMatch;
+        event.stage = "FUZZY_NAME";
+        MyersEditDistance distance = new MyersEditDistance(normalized);
+        long vowels = vowels(normalized);
+        NameIndex.Match nameMatch = fuzzyMatchNames(data, distance, vowels);
+        event.candidatesScored = nameMatch.scored();
+        if (nameMatch.id() >= 0) return data.nameIndex.code(nameMatch.id());
 
         // 4. Fuzzy code match (fallback)
-        return fuzzyMatchCodes(normalized);
+        event.stage = "FUZZY_CODE";
+        event.candidatesScored += data.codes.length;
+        return fuzzyMatchCodes(data, distance, vowels);
+    }
+
+    /**
+     * Trimmed, upper-cased and accent-folded: NFKD splits "Ö" into "O" and a combining
+     * diaeresis, and the combining marks are dropped, so "Österreich" and "osterreich" meet.
+     * Names are folded once at load; inputs once per call.
+     */
+    static String normalize(String s) {
+        String trimmed = s.trim();
+
+        boolean ascii = true;
+        for (int i = 0; i < trimmed.length() && ascii; i++) {
+            ascii = trimmed.charAt(i) < 128;
+        }
+        if (ascii) {
+            return trimmed.toUpperCase(Locale.ROOT);
+        }
+
+        String decomposed = Normalizer.normalize(trimmed, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            switch (Character.getType(c)) {
+                case Character.NON_SPACING_MARK, Character.COMBINING_SPACING_MARK, Character.ENCLOSING_MARK -> {
+                }
+                default -> folded.append(c);
+            }
+        }
+        return folded.toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolve many inputs in one pass: inputs that only differ in case, accents or surrounding
+     * whitespace are resolved once, and distinct inputs are resolved in parallel.
+     * Unresolvable inputs map to {@code null}.
+     */
+    public Map<String, String> resolveAll(Collection<String> inputs) {
+        Map<String, List<String>> byNormalized = new HashMap<>();
+        for (String input : inputs) {
+            if (input != null) {
+                byNormalized.computeIfAbsent(normalize(input), k -> new ArrayList<>()).add(input);
+            }
+        }
+
+        List<String> distinct = new ArrayList<>(byNormalized.keySet());
+        String[] codes = distinct.parallelStream().map(this::resolve).toArray(String[]::new);
+
+        Map<String, String> resolved = new HashMap<>();
+        for (int i = 0; i < codes.length; i++) {
+            for (String input : byNormalized.get(distinct.get(i))) {
+                resolved.put(input, codes[i]);
+            }
+        }
+        return resolved;
     }
 
     // ---------------------------------------------------------
@@ -103,102 +226,173 @@ public class CountryCodeResolver {
     // ---------------------------------------------------------
     // Fuzzy Matching on Names (dominant)
     // ---------------------------------------------------------
-    private String fuzzyMatchNames(String input) {
-        int bestScore = Integer.MIN_VALUE;
-        String bestMatch = null;
-
-        for (var entry : namesByCca3.entrySet()) {
-            String cca3 = entry.getKey();
-            List<String> names = entry.getValue();
-
-            for (String name : names) {
-                int score = scoreNameMatch(input, name);
-
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMatch = cca3;
-                }
+    /**
+     * Same result as scoring every name in {@code namesByCca3} order and keeping the first
+     * best, but only names whose score bound can still win are scored (see {@link NameIndex}).
+     */
+    private static NameIndex.Match fuzzyMatchNames(Dataset data, MyersEditDistance input, long vowels) {
+        NameIndex nameIndex = data.nameIndex;
+        long[] nameVowels = data.nameVowels;
+        int[] alwaysScored = input.pattern().length() <= 3 ? data.spNames : new int[0];
+
+        return nameIndex.best(input.pattern(), new NameIndex.Scorer() {
+            @Override
+            public int score(int id) {
+                return scoreNameMatch(input, vowels, nameIndex.name(id), nameVowels[id]);
             }
-        }
 
-        return bestScore >= 60 ? bestMatch : null; // lowered threshold for short inputs
+            @Override
+            public int upperBound(int overlap, int grams, int nameLength) {
+                return nameScoreBound(input.pattern().length(), overlap, grams, nameLength);
+            }
+        }, MIN_SCORE, alwaysScored);
     }
 
-    private int scoreNameMatch(String input, String name) {
-        String n = name.toUpperCase();
-
-        int dist = levenshtein(input, n);
-        int score = 120 - dist * 10;
+    /**
+     * {@code n} is the normalized name and {@code nameVowels} its {@link #vowels}. The bonuses
+     * are added up first, so the edit distance only has to be computed up to where the score
+     * would drop below {@link #MIN_SCORE}; past that the score is some value below it.
+     */
+    static int scoreNameMatch(MyersEditDistance distance, long inputVowels, String n, long nameVowels) {
+        String input = distance.pattern();
+        int bonus = 0;
 
         // prefix match is very strong
-        if (n.startsWith(input)) score += 40;
+        if (n.startsWith(input)) bonus += 40;
 
         // substring match
-        if (n.contains(input)) score += 20;
+        if (n.contains(input)) bonus += 20;
 
         // consonant/vowel pattern match
-        if (pattern(input).equals(pattern(n))) score += 20;
+        if (input.length() == n.length() && inputVowels == nameVowels) bonus += 20;
 
         // SPECIAL: short input boost (fixes SPN → ESP)
-        if (input.length() <= 3 && n.startsWith("SP")) score += 30;
+        if (input.length() <= 3 && n.startsWith("SP")) bonus += 30;
 
-        return score;
+        int dist = distance.distance(n, (120 + bonus - MIN_SCORE) / 10);
+        return 120 - dist * 10 + bonus;
+    }
+
+    /**
+     * Upper bound of {@link #scoreNameMatch} for a name that shares {@code overlap} of the
+     * input's {@code grams} trigrams, leaving out the short-input boost (those names are always
+     * scored). Each edit destroys at most three trigrams, and never fewer edits than the length
+     * difference; equal patterns need equal lengths, and a prefix (substring) keeps all but two
+     * (four) of the input's trigrams.
+     */
+    static int nameScoreBound(int inputLength, int overlap, int grams, int nameLength) {
+        int distance = Math.max((grams - overlap + 2) / 3, Math.abs(nameLength - inputLength));
+        int bound = 120 - distance * 10;
+
+        if (nameLength == inputLength) bound += 20;
+        if (nameLength >= inputLength && overlap >= grams - 4) bound += 20;
+        if (nameLength >= inputLength && overlap >= grams - 2) bound += 40;
+
+        return bound;
     }
 
     // ---------------------------------------------------------
     // Fuzzy Matching on Codes (fallback)
     // ---------------------------------------------------------
-    private String fuzzyMatchCodes(String input) {
+    private static String fuzzyMatchCodes(Dataset data, MyersEditDistance input, long vowels) {
         int bestScore = Integer.MIN_VALUE;
         String bestMatch = null;
 
-        for (String cca3 : allCca3Codes) {
-            int score = scoreCodeMatch(input, cca3);
+        String[] codes = data.codes;
+        for (int i = 0; i < codes.length; i++) {
+            int score = scoreCodeMatch(input, vowels, codes[i], data.codeVowels[i]);
 
             if (score > bestScore) {
                 bestScore = score;
-                bestMatch = cca3;
+                bestMatch = codes[i];
             }
         }
 
-        return bestScore >= 60 ? bestMatch : null;
+        return bestScore >= MIN_SCORE ? bestMatch : null;
     }
 
-    private int scoreCodeMatch(String input, String cca3) {
-        int dist = levenshtein(input, cca3);
+    /** Like {@link #scoreNameMatch}, exact only for scores of at least {@link #MIN_SCORE}. */
+    static int scoreCodeMatch(MyersEditDistance distance, long inputVowels, String cca3, long codeVowels) {
+        String input = distance.pattern();
+        int bonus = 0;
 
-        int score = 100 - dist * 25;
+        if (!input.isEmpty() && cca3.charAt(0) == input.charAt(0)) bonus += 10;
+        if (input.length() == cca3.length() && inputVowels == codeVowels) bonus += 10;
 
-        if (cca3.startsWith(input.substring(0, 1))) score += 10;
-        if (pattern(input).equals(pattern(cca3))) score += 10;
-
-        return score;
+        int dist = distance.distance(cca3, (100 + bonus - MIN_SCORE) / 25);
+        return 100 - dist * 25 + bonus;
     }
 
     // ---------------------------------------------------------
     // Helpers
     // ---------------------------------------------------------
-    private String pattern(String s) {
-        return s.replaceAll("[AEIOU]", "V").replaceAll("[^V]", "C");
+    /**
+     * The consonant/vowel pattern as a bit mask (bit {@code i} set when char {@code i} is one of
+     * AEIOU), so two strings of equal length share a pattern when their masks are equal. Only
+     * the first 64 chars fit; longer inputs are rejected as garbage long before that matters.
+     */
+    static long vowels(String s) {
+        long mask = 0;
+        for (int i = 0; i < Math.min(s.length(), Long.SIZE); i++) {
+            switch (s.charAt(i)) {
+                case 'A', 'E', 'I', 'O', 'U' -> mask |= 1L << i;
+                default -> {
+                }
+            }
+        }
+        return mask;
     }
 
-    private int levenshtein(String a, String b) {
-        int[][] dp = new int[a.length() + 1][b.length() + 1];
-
-        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
-
-        for (int i = 1; i <= a.length(); i++) {
-            for (int j = 1; j <= b.length(); j++) {
-                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
-
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost
-                );
+    // ---------------------------------------------------------
+    // Dataset
+    // ---------------------------------------------------------
+    private static final class Dataset {
+
+        private final Map<String, String> exactCodeMap;
+        private final Map<String, String> exactNameMap;
+
+        /** Every CCA3 code and its {@link #vowels}. */
+        private final String[] codes;
+        private final long[] codeVowels;
+
+        /** Every name of {@code namesByCca3}, normalized, in its iteration order. */
+        private final NameIndex nameIndex;
+        /** {@link #vowels} of each name, by name id. */
+        private final long[] nameVowels;
+        /** Names starting with "SP", which get the short-input boost. */
+        private final int[] spNames;
+
+        /** Fuzzy resolutions by normalized input; empty when nothing matched. */
+        private final Cache<String, Optional<String>> cache;
+
+        Dataset(Map<String, String> exactCodeMap, Map<String, String> exactNameMap, List<String> allCca3Codes,
+                Map<String, List<String>> namesByCca3, long cacheSize) {
+            this.exactCodeMap = exactCodeMap;
+            this.exactNameMap = exactNameMap;
+            this.codes = allCca3Codes.toArray(String[]::new);
+            this.codeVowels = allCca3Codes.stream().mapToLong(CountryCodeResolver::vowels).toArray();
+
+            List<String> names = new ArrayList<>();
+            List<String> nameCodes = new ArrayList<>();
+            for (var entry : namesByCca3.entrySet()) {
+                for (String name : entry.getValue()) {
+                    names.add(normalize(name));
+                    nameCodes.add(entry.getKey());
+                }
             }
-        }
 
-        return dp[a.length()][b.length()];
+            this.nameIndex = NameIndex.build(names, nameCodes);
+            this.nameVowels = names.stream().mapToLong(CountryCodeResolver::vowels).toArray();
+            this.spNames = IntStream.range(0, names.size())
+                    .filter(id -> names.get(id).startsWith("SP"))
+                    .toArray();
+
+            // Evicting on the calling thread keeps a size of 0 a true "no cache"
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(cacheSize)
+                    .executor(Runnable::run)
+                    .recordStats()
+                    .build();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,151 @@
+package com.ovidiu.countryrouting.fuzzymatching;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein distance from one pattern to many texts, using Myers' bit-parallel algorithm
+ * (in Hyyrö's formulation for whole-string distance).
+ * <p>
+ * The pattern's DP column lives in two 64-bit words of vertical deltas, so each text character
+ * costs a handful of word operations instead of a column of the DP matrix. The per-character
+ * match masks are built once in the constructor; {@link #distance} allocates nothing. A bound
+ * lets it stop as soon as the distance provably exceeds what the caller can use. Patterns longer
+ * than 64 chars fall back to a two-row DP.
+ */
+final class MyersEditDistance {
+
+    static final int MAX_PATTERN_LENGTH = 64;
+
+    private final String pattern;
+    private final int length;
+
+    /** Match masks of pattern chars below 128, indexed by char. */
+    private final long[] asciiMasks = new long[128];
+    /** Other pattern chars and their masks, side by side. */
+    private final char[] otherChars;
+    private final long[] otherMasks;
+
+    MyersEditDistance(String pattern) {
+        this.pattern = pattern;
+        this.length = pattern.length();
+
+        char[] others = new char[0];
+        long[] otherMasks = new long[0];
+        if (length <= MAX_PATTERN_LENGTH) {
+            for (int i = 0; i < length; i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) {
+                    asciiMasks[c] |= 1L << i;
+                    continue;
+                }
+                int slot = indexOf(others, c);
+                if (slot < 0) {
+                    slot = others.length;
+                    others = Arrays.copyOf(others, slot + 1);
+                    otherMasks = Arrays.copyOf(otherMasks, slot + 1);
+                    others[slot] = c;
+                }
+                otherMasks[slot] |= 1L << i;
+            }
+        }
+        this.otherChars = others;
+        this.otherMasks = otherMasks;
+    }
+
+    String pattern() {
+        return pattern;
+    }
+
+    /** Exact distance to {@code text}. */
+    int distance(String text) {
+        return distance(text, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Distance to {@code text} when it is at most {@code bound}; otherwise some value greater
+     * than {@code bound} (the search stops early).
+     */
+    int distance(String text, int bound) {
+        int n = text.length();
+        if (Math.abs(n - length) > bound) {
+            return bound + 1;
+        }
+        if (length == 0) {
+            return n;
+        }
+        if (length > MAX_PATTERN_LENGTH) {
+            return dynamicProgramming(text, bound);
+        }
+
+        long last = 1L << (length - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = length;
+
+        for (int j = 0; j < n; j++) {
+            long eq = mask(text.charAt(j));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+
+            // Row 0 of the DP is 0, 1, 2, ...: every column starts with a +1 horizontal delta
+            ph = (ph << 1) | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+
+            // The last row drops by at most one per remaining text char
+            if (score - (n - 1 - j) > bound) {
+                return bound + 1;
+            }
+        }
+        return score;
+    }
+
+    private long mask(char c) {
+        if (c < 128) {
+            return asciiMasks[c];
+        }
+        int slot = indexOf(otherChars, c);
+        return slot < 0 ? 0L : otherMasks[slot];
+    }
+
+    private static int indexOf(char[] chars, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) return i;
+        }
+        return -1;
+    }
+
+    /** Two-row Levenshtein for patterns too long for one word, stopping once a row exceeds the bound. */
+    private int dynamicProgramming(String text, int bound) {
+        int n = text.length();
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) previous[j] = j;
+
+        for (int i = 1; i <= length; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= n; j++) {
+                int cost = pattern.charAt(i - 1) == text.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n];
+    }
+}
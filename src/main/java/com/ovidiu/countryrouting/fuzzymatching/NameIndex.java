@@ -0,0 +1,225 @@
+package com.ovidiu.countryrouting.fuzzymatching;
+
+import java.util.*;
+
+/**
+ * Trigram inverted index over every country name, used to find the best fuzzy match without
+ * scoring every name.
+ * <p>
+ * Names are padded ({@code "##NAME##"}) and split into distinct trigrams. A query counts, per
+ * name, how many of the input's trigrams it shares; each edit destroys at most three trigrams,
+ * so that overlap bounds the edit distance from below. Names are scored in decreasing overlap
+ * and skipped when the {@link Scorer}'s upper bound for their overlap and length cannot beat the
+ * best score so far. Names sharing no trigram are only visited through the length buckets whose
+ * bound still allows a match. The result is the same as scoring every name in id order and
+ * keeping the first best, which is why ids follow the order names were added in.
+ */
+final class NameIndex {
+
+    /** Scoring function the index searches with. */
+    interface Scorer {
+
+        int score(int id);
+
+        /**
+         * Highest score any name of {@code nameLength} chars can reach when it shares
+         * {@code overlap} of the input's {@code grams} trigrams.
+         */
+        int upperBound(int overlap, int grams, int nameLength);
+    }
+
+    /** Best name id ({@code -1} when none reached the threshold) and how many names were scored. */
+    record Match(int id, int score, int scored) {
+    }
+
+    private static final char PAD = '#';
+
+    private final String[] names;
+    private final String[] codes;
+    private final Map<Long, int[]> postings;
+    private final int[][] byLength;
+
+    private final ThreadLocal<int[]> overlapScratch;
+
+    private NameIndex(String[] names, String[] codes, Map<Long, int[]> postings, int[][] byLength) {
+        this.names = names;
+        this.codes = codes;
+        this.postings = postings;
+        this.byLength = byLength;
+        this.overlapScratch = ThreadLocal.withInitial(() -> new int[names.length]);
+    }
+
+    /** Index upper-cased {@code names}; {@code codes[i]} is the CCA3 code of {@code names[i]}. */
+    static NameIndex build(List<String> names, List<String> codes) {
+        Map<Long, List<Integer>> lists = new HashMap<>();
+        List<List<Integer>> lengths = new ArrayList<>();
+
+        for (int id = 0; id < names.size(); id++) {
+            for (long gram : grams(names.get(id))) {
+                lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(id);
+            }
+
+            int length = names.get(id).length();
+            while (lengths.size() <= length) {
+                lengths.add(new ArrayList<>());
+            }
+            lengths.get(length).add(id);
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((gram, ids) -> postings.put(gram, toArray(ids)));
+
+        int[][] byLength = new int[lengths.size()][];
+        for (int length = 0; length < byLength.length; length++) {
+            byLength[length] = toArray(lengths.get(length));
+        }
+
+        return new NameIndex(names.toArray(String[]::new), codes.toArray(String[]::new), postings, byLength);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    String code(int id) {
+        return codes[id];
+    }
+
+    /**
+     * Highest-scoring name for {@code input}, lowest id on ties, among names scoring at least
+     * {@code threshold}. {@code alwaysScored} names are scored up front; the scorer's bounds
+     * only have to hold for the other names.
+     */
+    Match best(String input, Scorer scorer, int threshold, int[] alwaysScored) {
+        long[] grams = grams(input);
+        int[] overlap = overlapScratch.get();
+        int[] touched = new int[Math.min(names.length, totalPostings(grams))];
+        int touchedCount = 0;
+
+        for (long gram : grams) {
+            int[] ids = postings.get(gram);
+            if (ids == null) continue;
+            for (int id : ids) {
+                if (overlap[id]++ == 0) {
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        Search search = new Search(scorer, threshold);
+        try {
+            for (int id : alwaysScored) {
+                search.score(id);
+            }
+
+            // Most shared trigrams first, so the bound rises early; ids ascending within a bucket
+            int[] order = byOverlapDescending(touched, touchedCount, overlap, grams.length);
+            for (int i = 0; i < touchedCount; i++) {
+                int id = order[i];
+                if (search.canImprove(id, scorer.upperBound(overlap[id], grams.length, names[id].length()))) {
+                    search.score(id);
+                }
+            }
+
+            for (int length = 0; length < byLength.length; length++) {
+                int bound = scorer.upperBound(0, grams.length, length);
+                for (int id : byLength[length]) {
+                    if (overlap[id] == 0 && search.canImprove(id, bound)) {
+                        search.score(id);
+                    }
+                }
+            }
+        } finally {
+            for (int i = 0; i < touchedCount; i++) {
+                overlap[touched[i]] = 0;
+            }
+        }
+
+        return search.match();
+    }
+
+    private int totalPostings(long[] grams) {
+        int total = 0;
+        for (long gram : grams) {
+            int[] ids = postings.get(gram);
+            if (ids != null) total += ids.length;
+        }
+        return total;
+    }
+
+    /** Counting sort of the touched ids by overlap, highest first; stable, so ids stay ascending. */
+    private static int[] byOverlapDescending(int[] touched, int count, int[] overlap, int maxOverlap) {
+        Arrays.sort(touched, 0, count);
+
+        int[] starts = new int[maxOverlap + 2];
+        for (int i = 0; i < count; i++) {
+            starts[maxOverlap - overlap[touched[i]] + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[starts[maxOverlap - overlap[touched[i]]]++] = touched[i];
+        }
+        return order;
+    }
+
+    /** Distinct trigrams of {@code "##" + s + "##"}, each packed into a long. */
+    static long[] grams(String s) {
+        if (s.isEmpty()) {
+            return new long[0];
+        }
+
+        String padded = "" + PAD + PAD + s + PAD + PAD;
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static final class Search {
+
+        private final Scorer scorer;
+        private final int threshold;
+        private int bestId = -1;
+        private int bestScore = Integer.MIN_VALUE;
+        private int scored;
+
+        Search(Scorer scorer, int threshold) {
+            this.scorer = scorer;
+            this.threshold = threshold;
+        }
+
+        /** Could a name with this bound still become the result (ties go to the lower id)? */
+        boolean canImprove(int id, int bound) {
+            if (bound < threshold) return false;
+            return bound > bestScore || (bound == bestScore && id < bestId);
+        }
+
+        void score(int id) {
+            int score = scorer.score(id);
+            scored++;
+            if (score > bestScore || (score == bestScore && id < bestId)) {
+                bestScore = score;
+                bestId = id;
+            }
+        }
+
+        Match match() {
+            return bestScore >= threshold
+                    ? new Match(bestId, bestScore, scored)
+                    : new Match(-1, bestScore, scored);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.ovidiu.countryrouting.graph;
+
+import java.util.*;
+
+/**
+ * Immutable, int-indexed view of the border graph.
+ * <p>
+ * Countries are mapped to dense ids (sorted by CCA3 code) and adjacency is stored
+ * in CSR form: the neighbors of node {@code u} are
+ * {@code neighbors[offsets[u]] .. neighbors[offsets[u + 1] - 1]}, in the same order
+ * as the {@code borders} list they were compiled from. Instances are safe to share
+ * across threads; the string &lt;-&gt; id dictionary is only meant for the API edges.
+ * <p>
+ * Every graph carries a content fingerprint ({@link #version()}): the same dataset always
+ * compiles to the same version, so caches keyed by it survive restarts but never mix
+ * routes from different datasets. The all-pairs {@link ShortestPathTable} is computed as
+ * part of compilation, i.e. at startup or on reload, never on the request path.
+ * <p>
+ * Nodes are also labelled with their connected component, ignoring border direction.
+ * Two countries in different components can never reach each other, which
+ * {@link #sameComponent(int, int)} answers without any search.
+ */
+public final class CompiledGraph {
+
+    private final String[] codes;
+    private final Map<String, Integer> ids;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final int[] inOffsets;
+    private final int[] inNeighbors;
+    private final int[] component;
+    private final int[] componentSizes;
+    private final boolean[] symmetricCore;
+    private final long version;
+    private final String versionTag;
+    private final ShortestPathTable shortestPaths;
+
+    private CompiledGraph(String[] codes, Map<String, Integer> ids, int[] offsets, int[] neighbors) {
+        this.codes = codes;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+
+        // Reverse CSR (who borders me), for searches that walk towards a destination
+        this.inOffsets = new int[codes.length + 1];
+        for (int neighbor : neighbors) {
+            inOffsets[neighbor + 1]++;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        this.inNeighbors = new int[neighbors.length];
+        int[] fill = Arrays.copyOf(inOffsets, codes.length);
+        for (int node = 0; node < codes.length; node++) {
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                inNeighbors[fill[neighbors[e]]++] = node;
+            }
+        }
+
+        this.component = new int[codes.length];
+        this.componentSizes = labelComponents();
+        this.symmetricCore = findSymmetricCores();
+
+        this.version = fingerprint(codes, offsets, neighbors);
+        this.versionTag = String.format("%016x", version);
+        this.shortestPaths = codes.length <= ShortestPathTable.MAX_TABLE_NODES
+                ? ShortestPathTable.compute(this)
+                : null;
+    }
+
+    /** Compile a {@code cca3 -> borders} adjacency map into CSR arrays. */
+    public static CompiledGraph compile(Map<String, List<String>> adjacency) {
+        // Neighbors that are not keys themselves still become (isolated) nodes,
+        // mirroring the getOrDefault(..., List.of()) lookups of the map-based searches.
+        SortedSet<String> allCodes = new TreeSet<>(adjacency.keySet());
+        adjacency.values().forEach(borders -> {
+            if (borders != null) allCodes.addAll(borders);
+        });
+
+        String[] codes = allCodes.toArray(String[]::new);
+        Map<String, Integer> ids = new HashMap<>(codes.length * 2);
+        for (int i = 0; i < codes.length; i++) {
+            ids.put(codes[i], i);
+        }
+
+        int[] offsets = new int[codes.length + 1];
+        for (int i = 0; i < codes.length; i++) {
+            List<String> borders = adjacency.get(codes[i]);
+            offsets[i + 1] = offsets[i] + (borders == null ? 0 : borders.size());
+        }
+
+        int[] neighbors = new int[offsets[codes.length]];
+        for (int i = 0; i < codes.length; i++) {
+            List<String> borders = adjacency.get(codes[i]);
+            if (borders == null) continue;
+
+            int edge = offsets[i];
+            for (String border : borders) {
+                neighbors[edge++] = ids.get(border);
+            }
+        }
+
+        return new CompiledGraph(codes, Collections.unmodifiableMap(ids), offsets, neighbors);
+    }
+
+    /** BFS over out- and in-edges from every unlabelled node, in id order; returns the component sizes. */
+    private int[] labelComponents() {
+        Arrays.fill(component, -1);
+        int[] sizes = new int[codes.length];
+        int[] queue = new int[codes.length];
+        int count = 0;
+
+        for (int start = 0; start < codes.length; start++) {
+            if (component[start] >= 0) continue;
+
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            component[start] = count;
+
+            while (head < tail) {
+                int current = queue[head++];
+                for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                    if (component[neighbors[e]] < 0) {
+                        component[neighbors[e]] = count;
+                        queue[tail++] = neighbors[e];
+                    }
+                }
+                for (int e = inOffsets[current]; e < inOffsets[current + 1]; e++) {
+                    if (component[inNeighbors[e]] < 0) {
+                        component[inNeighbors[e]] = count;
+                        queue[tail++] = inNeighbors[e];
+                    }
+                }
+            }
+            sizes[count++] = tail;
+        }
+        return Arrays.copyOf(sizes, count);
+    }
+
+    /**
+     * Per component: is every border between two nodes with both in- and out-edges listed in
+     * both directions? Nodes without in-edges (or out-edges) can only start (or end) a route,
+     * so routes between the remaining nodes never leave that mutual part of the graph.
+     */
+    private boolean[] findSymmetricCores() {
+        boolean[] symmetric = new boolean[componentSizes.length];
+        Arrays.fill(symmetric, true);
+
+        for (int node = 0; node < codes.length; node++) {
+            if (!inCore(node)) continue;
+
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = neighbors[e];
+                if (inCore(neighbor) && !hasEdge(neighbor, node)) {
+                    symmetric[component[node]] = false;
+                }
+            }
+        }
+        return symmetric;
+    }
+
+    private boolean inCore(int node) {
+        return offsets[node + 1] > offsets[node] && inOffsets[node + 1] > inOffsets[node];
+    }
+
+    private boolean hasEdge(int from, int to) {
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            if (neighbors[e] == to) return true;
+        }
+        return false;
+    }
+
+    /** 64-bit FNV-1a hash over the codes and the CSR arrays. */
+    private static long fingerprint(String[] codes, int[] offsets, int[] neighbors) {
+        long hash = 0xcbf29ce484222325L;
+        for (String code : codes) {
+            for (int i = 0; i < code.length(); i++) {
+                hash = (hash ^ code.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ ',') * 0x100000001b3L;
+        }
+        for (int offset : offsets) {
+            hash = (hash ^ offset) * 0x100000001b3L;
+        }
+        for (int neighbor : neighbors) {
+            hash = (hash ^ neighbor) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** Content fingerprint of this snapshot. */
+    public long version() {
+        return version;
+    }
+
+    /** {@link #version()} as a fixed-width hex string, used as a cache-key suffix. */
+    public String versionTag() {
+        return versionTag;
+    }
+
+    /** Precomputed all-pairs tables, or {@code null} when the graph is too large for them. */
+    public ShortestPathTable shortestPaths() {
+        return shortestPaths;
+    }
+
+    /** Number of nodes (countries) in the graph. */
+    public int size() {
+        return codes.length;
+    }
+
+    /** Dense id of a country, or {@code -1} when the code is unknown. */
+    public int id(String code) {
+        if (code == null) return -1;
+        Integer id = ids.get(code);
+        return id == null ? -1 : id;
+    }
+
+    public boolean contains(String code) {
+        return id(code) >= 0;
+    }
+
+    public String code(int id) {
+        return codes[id];
+    }
+
+    /** First edge index of {@code node}; iterate up to {@link #edgeEnd(int)}. */
+    public int edgeStart(int node) {
+        return offsets[node];
+    }
+
+    /** Exclusive end edge index of {@code node}. */
+    public int edgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    /** Target node of the given edge index. */
+    public int neighborAt(int edge) {
+        return neighbors[edge];
+    }
+
+    /** First in-edge index of {@code node}; iterate up to {@link #inEdgeEnd(int)}. */
+    public int inEdgeStart(int node) {
+        return inOffsets[node];
+    }
+
+    /** Exclusive end in-edge index of {@code node}. */
+    public int inEdgeEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    /** Source node of the given in-edge index, i.e. a country listing {@code node} as a border. */
+    public int inNeighborAt(int edge) {
+        return inNeighbors[edge];
+    }
+
+    /** Connected component of {@code node}; ids are dense, numbered in order of their lowest node id. */
+    public int component(int node) {
+        return component[node];
+    }
+
+    /** Number of countries in the component of {@code node}, itself included. */
+    public int componentSize(int node) {
+        return componentSizes[component[node]];
+    }
+
+    public int componentCount() {
+        return componentSizes.length;
+    }
+
+    /** {@code false} means no land route can exist between the two countries, in either direction. */
+    public boolean sameComponent(int a, int b) {
+        return component[a] == component[b];
+    }
+
+    /**
+     * {@code true} when shortest routes {@code a -> b} are exactly the reverses of shortest
+     * routes {@code b -> a}, so a search from either end answers both directions.
+     */
+    public boolean reversible(int a, int b) {
+        return a == b || (sameComponent(a, b) && inCore(a) && inCore(b) && symmetricCore[component[a]]);
+    }
+
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int edgeCount() {
+        return neighbors.length;
+    }
+
+    /** Translate the first {@code length} ids of {@code path} back to CCA3 codes. */
+    public List<String> toCodes(int[] path, int length) {
+        String[] route = new String[length];
+        for (int i = 0; i < length; i++) {
+            route[i] = codes[path[i]];
+        }
+        return Arrays.asList(route);
+    }
+
+    public List<String> toCodes(Collection<Integer> path) {
+        List<String> route = new ArrayList<>(path.size());
+        for (int node : path) {
+            route.add(codes[node]);
+        }
+        return route;
+    }
+}
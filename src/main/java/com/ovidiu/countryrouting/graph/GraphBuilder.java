@@ -1,43 +1,185 @@
 package com.ovidiu.countryrouting.graph;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ovidiu.countryrouting.utils.CountryBorderMapper.CountryCompact;
+import jakarta.annotation.PostConstruct;
 import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Owns the current border-graph snapshot.
+ * <p>
+ * Readers call {@link #getGraph()} once per request and keep working on that snapshot.
+ * {@link #reload()} parses and validates a new dataset on the caller's thread, then swaps
+ * it in atomically; a dataset that fails validation leaves the current snapshot untouched.
+ */
+@Slf4j
 @Component
 @NoArgsConstructor
 public class GraphBuilder {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    private final AtomicReference<CompiledGraph> snapshot = new AtomicReference<>();
+
+    /** Optional external borders.json; when blank the bundled classpath copy is used. */
+    @Value("${routing.graph.borders-file:}")
+    private String bordersFile = "";
+
+    private volatile FileTime loadedModifiedTime;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Compile the border graph once, before the first request needs it. */
+    @PostConstruct
+    public void init() {
+        getGraph();
+    }
+
+    /** Current read-only snapshot; parsed from borders.json only on first use. */
+    public CompiledGraph getGraph() {
+        CompiledGraph graph = snapshot.get();
+        if (graph == null) {
+            synchronized (this) {
+                graph = snapshot.get();
+                if (graph == null) {
+                    graph = compileValidated();
+                    snapshot.set(graph);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Parse, validate and publish the dataset again.
+     * Returns the snapshot that is current afterwards (unchanged if the content is identical).
+     */
+    public synchronized CompiledGraph reload() {
+        CompiledGraph next = compileValidated();
+        CompiledGraph previous = snapshot.get();
+
+        if (previous != null && previous.version() == next.version()) {
+            return previous;
+        }
+
+        snapshot.set(next);
+        log.info("Graph snapshot {} published ({} countries, {} borders)",
+                next.versionTag(), next.size(), next.edgeCount());
+
+        if (previous != null && eventPublisher != null) {
+            eventPublisher.publishEvent(new GraphReloadedEvent(previous, next));
+        }
+        return next;
+    }
+
+    /** Poll the external borders file and reload when it has been modified. */
+    @Scheduled(fixedDelayString = "${routing.graph.watch-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (bordersFile == null || bordersFile.isBlank()) {
+            return;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(Paths.get(bordersFile));
+            if (!modified.equals(loadedModifiedTime)) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Graph reload from {} failed, keeping snapshot {}",
+                    bordersFile, snapshot.get() == null ? "-" : snapshot.get().versionTag(), e);
+        }
+    }
+
+    private CompiledGraph compileValidated() {
+        Map<String, List<String>> graph = buildGraph();
+        validate(graph);
+        return CompiledGraph.compile(graph);
+    }
+
     public Map<String, List<String>> buildGraph() {
-        InputStream is = getClass().getClassLoader()
-                .getResourceAsStream("data/borders.json");
+        InputStream is = openBorders();
 
         if (is == null) {
             throw new IllegalStateException("borders.json not found in resources/data/");
         }
 
-        try {
+        try (is) {
             Map<String, CountryCompact> raw =
                     MAPPER.readValue(is, new TypeReference<>() {
                     });
 
             Map<String, List<String>> graph = new HashMap<>();
 
-            raw.forEach((cca3, compact) -> graph.put(cca3, compact.getBorders()));
+            raw.forEach((cca3, compact) -> graph.put(cca3,
+                    compact == null || compact.getBorders() == null ? List.of() : compact.getBorders()));
 
             return graph;
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load graph", e);
+        } catch (JsonProcessingException e) {
+            // Reported like a validation failure: the dataset is the problem, not the service
+            throw new IllegalStateException("Invalid borders dataset: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalStateException("borders file not readable: " + e.getMessage(), e);
+        }
+    }
+
+    private InputStream openBorders() {
+        if (bordersFile == null || bordersFile.isBlank()) {
+            return getClass().getClassLoader().getResourceAsStream("data/borders.json");
+        }
+
+        Path path = Paths.get(bordersFile);
+        try {
+            loadedModifiedTime = Files.getLastModifiedTime(path);
+            return Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("borders file not readable: " + path, e);
+        }
+    }
+
+    /** Reject datasets that would produce a broken snapshot. */
+    static void validate(Map<String, List<String>> graph) {
+        if (graph.isEmpty()) {
+            throw new IllegalStateException("Invalid borders dataset: no countries");
+        }
+
+        List<String> problems = new ArrayList<>();
+        graph.forEach((cca3, borders) -> {
+            for (String border : borders) {
+                if (border == null || !graph.containsKey(border)) {
+                    problems.add(cca3 + " -> " + border);
+                } else if (border.equals(cca3)) {
+                    problems.add(cca3 + " borders itself");
+                }
+            }
+        });
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid borders dataset: " + problems);
         }
     }
 }
@@ -0,0 +1,8 @@
+package com.ovidiu.countryrouting.graph;
+
+/**
+ * Published by {@link GraphBuilder} after a new graph snapshot has been swapped in.
+ * Requests that started before the swap keep running on {@code previous}.
+ */
+public record GraphReloadedEvent(CompiledGraph previous, CompiledGraph current) {
+}
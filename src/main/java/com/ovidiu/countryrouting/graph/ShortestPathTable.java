@@ -0,0 +1,104 @@
+package com.ovidiu.countryrouting.graph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * All-pairs hop-distance and next-hop tables, one BFS row per origin.
+ * <p>
+ * Row {@code origin} stores, for each destination, the hop count and the hop preceding the
+ * destination in the origin's BFS tree. Walking those hops back from the destination yields
+ * exactly the route a BFS from the origin would return, in O(path length); unreachable pairs
+ * are a single lookup. With ~250 countries both tables together stay around 250 KB.
+ */
+public final class ShortestPathTable {
+
+    /** Node ids must fit in a short. */
+    public static final int MAX_NODES = Short.MAX_VALUE;
+
+    /**
+     * Largest graph a table is built for: both tables take {@code 4 * n * n} bytes, 64 MB at
+     * 4096 nodes. Larger graphs fall back to cached BFS trees.
+     */
+    public static final int MAX_TABLE_NODES = 4096;
+
+    private static final short UNREACHABLE = -1;
+
+    private final int size;
+    private final short[] distance;
+    private final short[] previousHop;
+
+    private ShortestPathTable(int size, short[] distance, short[] previousHop) {
+        this.size = size;
+        this.distance = distance;
+        this.previousHop = previousHop;
+    }
+
+    /** Run one BFS per origin, in parallel; each row is written by a single task. */
+    static ShortestPathTable compute(CompiledGraph graph) {
+        int n = graph.size();
+        if (n > MAX_TABLE_NODES) {
+            throw new IllegalArgumentException("Graph too large for a next-hop table: " + n + " nodes");
+        }
+
+        short[] distance = new short[n * n];
+        short[] previousHop = new short[n * n];
+        Arrays.fill(distance, UNREACHABLE);
+
+        IntStream.range(0, n).parallel()
+                .forEach(origin -> fillRow(graph, origin, distance, previousHop));
+
+        return new ShortestPathTable(n, distance, previousHop);
+    }
+
+    private static void fillRow(CompiledGraph graph, int origin, short[] distance, short[] previousHop) {
+        int n = graph.size();
+        int row = origin * n;
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = origin;
+        distance[row + origin] = 0;
+        previousHop[row + origin] = (short) origin;
+
+        while (head < tail) {
+            int current = queue[head++];
+            short next = (short) (distance[row + current] + 1);
+
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (distance[row + neighbor] == UNREACHABLE) {
+                    distance[row + neighbor] = next;
+                    previousHop[row + neighbor] = (short) current;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /** Hop count of the shortest route, or {@code -1} when there is none. */
+    public int distance(int origin, int destination) {
+        return distance[origin * size + destination];
+    }
+
+    public boolean isReachable(int origin, int destination) {
+        return distance(origin, destination) >= 0;
+    }
+
+    /** Node ids of the shortest route (origin first), or {@code null} when unreachable. */
+    public int[] route(int origin, int destination) {
+        int hops = distance(origin, destination);
+        if (hops < 0) {
+            return null;
+        }
+
+        int row = origin * size;
+        int[] path = new int[hops + 1];
+        path[hops] = destination;
+        for (int i = hops; i > 0; i--) {
+            path[i - 1] = previousHop[row + path[i]];
+        }
+        return path;
+    }
+}
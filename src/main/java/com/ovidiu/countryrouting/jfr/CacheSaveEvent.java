@@ -0,0 +1,28 @@
+package com.ovidiu.countryrouting.jfr;
+
+import jdk.jfr.*;
+
+/** One write of the all-routes cache: a batch of entries appended to the log, or a compaction. */
+@Name("com.ovidiu.countryrouting.CacheSave")
+@Label("All-Routes Cache Save")
+@Category({"Country Routing", "Cache"})
+@StackTrace(false)
+public class CacheSaveEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Compaction")
+    @Description("The binary cache file rewritten with the log's entries, after which the log starts over")
+    public boolean compaction;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,107 @@
+package com.ovidiu.countryrouting.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts and dumps one on-demand flight recording with the routing events plus the JDK's
+ * "default" settings (GC, allocation, locks; about 1% overhead). While nothing is recording,
+ * the routing events cost an allocation the JIT removes and a disabled-flag check.
+ */
+@Slf4j
+@Service
+public class FlightRecorderService {
+
+    static final List<Class<? extends jdk.jfr.Event>> ROUTING_EVENTS = List.of(
+            ResolveEvent.class, RouteSearchEvent.class, RouteCacheEvent.class, CacheSaveEvent.class);
+
+    private Recording recording;
+
+    /**
+     * Start recording, keeping at most the last {@code maxAge} of data.
+     *
+     * @throws IllegalStateException when a recording is already running
+     */
+    public synchronized Map<String, Object> start(Duration maxAge) throws IOException, ParseException {
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        close();
+
+        Recording next = new Recording(Configuration.getConfiguration("default"));
+        next.setName("country-routing");
+        next.setMaxAge(maxAge);
+        next.setToDisk(true);
+        ROUTING_EVENTS.forEach(next::enable);
+        next.start();
+
+        recording = next;
+        log.info("Flight recording {} started (max age {})", next.getId(), maxAge);
+        return status();
+    }
+
+    /**
+     * Snapshot of everything recorded so far, as a .jfr file; the recording keeps running.
+     *
+     * @throws IllegalStateException when no recording was started
+     */
+    public synchronized byte[] dump() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording was started");
+        }
+
+        Path file = Files.createTempFile("country-routing", ".jfr");
+        try {
+            recording.dump(file);
+            return Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** @throws IllegalStateException when no recording is running */
+    public synchronized Map<String, Object> stop() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.stop();
+        return status();
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording == null ? "NONE" : recording.getState().name());
+        if (recording != null) {
+            status.put("id", recording.getId());
+            status.put("startTime", String.valueOf(recording.getStartTime()));
+            status.put("maxAgeSeconds", recording.getMaxAge() == null ? null : recording.getMaxAge().toSeconds());
+        }
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.ovidiu.countryrouting.jfr;
+
+import jdk.jfr.*;
+
+/** One {@code CountryCodeResolver.resolve} call: which stage answered it and how many candidates were scored. */
+@Name("com.ovidiu.countryrouting.Resolve")
+@Label("Country Resolution")
+@Category({"Country Routing", "Resolver"})
+@StackTrace(false)
+public class ResolveEvent extends Event {
+
+    @Label("Input")
+    public String input;
+
+    @Label("Stage")
+    @Description("GARBAGE, EXACT_CODE, EXACT_NAME, CACHED (a cached fuzzy result), FUZZY_NAME or FUZZY_CODE; the last stage tried when nothing matched")
+    public String stage;
+
+    @Label("Match")
+    @Description("Resolved CCA3 code, or null")
+    public String match;
+
+    @Label("Candidates Scored")
+    public int candidatesScored;
+}
@@ -0,0 +1,40 @@
+package com.ovidiu.countryrouting.jfr;
+
+import jdk.jfr.*;
+
+/** A lookup in one of the {@code RouteFinder} caches. */
+@Name("com.ovidiu.countryrouting.RouteCache")
+@Label("Route Cache Lookup")
+@Category({"Country Routing", "Cache"})
+@StackTrace(false)
+public class RouteCacheEvent extends Event {
+
+    public static final String SHORTEST_PATH_TREES = "shortest-path-trees";
+    public static final String ALL_ROUTES = "all-routes";
+
+    public static final String HIT = "HIT";
+    public static final String REVERSE_HIT = "REVERSE_HIT";
+    public static final String MISS = "MISS";
+    public static final String SHARED = "SHARED";
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Outcome")
+    @Description("HIT, REVERSE_HIT (answered from the opposite direction's entry), MISS, or SHARED "
+            + "(after a MISS: answered by a search another request was already running)")
+    public String outcome;
+
+    public static void emit(String cache, String key, String outcome) {
+        RouteCacheEvent event = new RouteCacheEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.key = key;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ovidiu.countryrouting.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One shortest-route or all-routes search. Counters an engine does not track are {@code -1}.
+ * <p>
+ * Usage: {@code RouteSearchEvent event = RouteSearchEvent.start(...)}, run the search, then
+ * {@link #finish}; both are a few field writes when no recording is running.
+ */
+@Name("com.ovidiu.countryrouting.RouteSearch")
+@Label("Route Search")
+@Category({"Country Routing", "Search"})
+@StackTrace(false)
+public class RouteSearchEvent extends Event {
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Origin")
+    public String origin;
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Max Depth")
+    @Description("Border crossing limit of an all-routes search; -1 for shortest routes")
+    public int maxDepth;
+
+    @Label("Nodes Expanded")
+    public long nodesExpanded;
+
+    @Label("Depth Reached")
+    @Description("Deepest level expanded, in hops from the origin")
+    public int depthReached;
+
+    @Label("Routes Emitted")
+    public long routesEmitted;
+
+    public static RouteSearchEvent start(String engine, String origin, String destination, int maxDepth) {
+        RouteSearchEvent event = new RouteSearchEvent();
+        event.engine = engine;
+        event.origin = origin;
+        event.destination = destination;
+        event.maxDepth = maxDepth;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long nodesExpanded, int depthReached, long routesEmitted) {
+        end();
+        if (shouldCommit()) {
+            this.nodesExpanded = nodesExpanded;
+            this.depthReached = depthReached;
+            this.routesEmitted = routesEmitted;
+            commit();
+        }
+    }
+}
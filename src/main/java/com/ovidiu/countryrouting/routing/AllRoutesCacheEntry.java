@@ -1,16 +1,364 @@
 package com.ovidiu.countryrouting.routing;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ovidiu.countryrouting.graph.CompiledGraph;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
 
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
-@Getter
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * Routes of one cached pair, stored as a prefix trie over country ids. Routes found by a DFS
+ * share long prefixes (every one starts at the origin, most continue through the same few
+ * neighbours), and the trie keeps each shared prefix once.
+ * <p>
+ * The trie is laid out in preorder: node {@code i} is the country {@code ids[i]} (an index into
+ * the entry's own {@code countries} table; the codes are shared with the graph, not copied) at
+ * depth {@code depths[i]}. A node's parent is the closest earlier node one level up, and a route
+ * ends at every node whose successor is not one level deeper. Routes are inserted in order,
+ * sharing the prefix of the route before them, so iteration returns them in the order they were
+ * given (the DFS order of the enumerators).
+ * <p>
+ * {@link #getRoutes} and {@link #routes} return views that build a route's list only when it is
+ * read, i.e. when a response or log line is serialized. {@link #reversed} reads the same trie
+ * backwards. {@link #weight} estimates the retained heap for the cache's weigher. The JSON shape
+ * ({@code maxDepth}, {@code maxRoutes}, {@code routes}) is unchanged.
+ */
 public class AllRoutesCacheEntry {
-    private int maxDepth;
-    private int maxRoutes;
-    private List<List<String>> routes;
+
+    /** Countries per route: depths are stored in a byte. */
+    static final int MAX_ROUTE_LENGTH = 256;
+
+    /** Object header plus the seven fields, and the header of each array. */
+    private static final int ENTRY_BYTES = 40;
+    private static final int ARRAY_BYTES = 16;
+
+    @Getter
+    private final int maxDepth;
+    @Getter
+    private final int maxRoutes;
+
+    private final String[] countries;
+    private final short[] ids;
+    private final byte[] depths;
+    private final int routeCount;
+    /** Routes are read leaf to root. */
+    private final boolean reversed;
+
+    @JsonCreator
+    public AllRoutesCacheEntry(@JsonProperty("maxDepth") int maxDepth,
+                               @JsonProperty("maxRoutes") int maxRoutes,
+                               @JsonProperty("routes") List<List<String>> routes) {
+        Map<String, Integer> table = new HashMap<>();
+        Builder builder = new Builder();
+        int[] route = new int[MAX_ROUTE_LENGTH];
+
+        for (List<String> codes : routes == null ? List.<List<String>>of() : routes) {
+            checkLength(codes.size());
+            for (int i = 0; i < codes.size(); i++) {
+                route[i] = table.computeIfAbsent(codes.get(i), code -> {
+                    checkTableSize(table.size());
+                    return table.size();
+                });
+            }
+            builder.add(route, codes.size());
+        }
+
+        String[] countries = new String[table.size()];
+        table.forEach((country, id) -> countries[id] = country);
+
+        this.maxDepth = maxDepth;
+        this.maxRoutes = maxRoutes;
+        this.countries = countries;
+        this.ids = builder.size == builder.ids.length ? builder.ids : Arrays.copyOf(builder.ids, builder.size);
+        this.depths = builder.size == builder.depths.length ? builder.depths : Arrays.copyOf(builder.depths, builder.size);
+        this.routeCount = builder.routeCount;
+        this.reversed = false;
+    }
+
+    private AllRoutesCacheEntry(int maxDepth, int maxRoutes, String[] countries, short[] ids, byte[] depths,
+                                int routeCount, boolean reversed) {
+        this.maxDepth = maxDepth;
+        this.maxRoutes = maxRoutes;
+        this.countries = countries;
+        this.ids = ids;
+        this.depths = depths;
+        this.routeCount = routeCount;
+        this.reversed = reversed;
+    }
+
+    /** Build the trie from routes of graph ids without building their code lists. */
+    static AllRoutesCacheEntry of(int maxDepth, int maxRoutes, List<int[]> routes, CompiledGraph graph) {
+        int[] local = new int[graph.size()];
+        Arrays.fill(local, -1);
+        String[] table = new String[graph.size()];
+        int tableSize = 0;
+
+        int nodes = 0;
+        int[] previous = new int[0];
+        for (int[] path : routes) {
+            nodes += path.length - Builder.sharedPrefix(previous, previous.length, path, path.length);
+            previous = path;
+        }
+
+        Builder builder = new Builder(nodes);
+        int[] route = new int[MAX_ROUTE_LENGTH];
+        for (int[] path : routes) {
+            checkLength(path.length);
+            for (int i = 0; i < path.length; i++) {
+                if (local[path[i]] < 0) {
+                    checkTableSize(tableSize);
+                    local[path[i]] = tableSize;
+                    table[tableSize++] = graph.code(path[i]);
+                }
+                route[i] = local[path[i]];
+            }
+            builder.add(route, path.length);
+        }
+        return builder.build(maxDepth, maxRoutes, Arrays.copyOf(table, tableSize));
+    }
+
+    private static void checkLength(int length) {
+        if (length == 0 || length > MAX_ROUTE_LENGTH) {
+            throw new IllegalArgumentException("Route of " + length + " countries cannot be cached");
+        }
+    }
+
+    private static void checkTableSize(int size) {
+        if (size > 0xFFFF) {
+            throw new IllegalArgumentException("More than " + 0x10000 + " countries in one cache entry");
+        }
+    }
+
+    public List<List<String>> getRoutes() {
+        return routes(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** The first {@code limit} routes with at most {@code maxDepth} hops, as a lazy view. */
+    public List<List<String>> routes(int maxDepth, int limit) {
+        return new RouteView(maxDepth, limit);
+    }
+
+    /** This entry for the opposite direction: the same trie, each route read backwards. */
+    public AllRoutesCacheEntry reversed() {
+        return new AllRoutesCacheEntry(maxDepth, maxRoutes, countries, ids, depths, routeCount, !reversed);
+    }
+
+    public int routeCount() {
+        return routeCount;
+    }
+
+    /** The entry's country table; not a copy. */
+    String[] countries() {
+        return countries;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /** Estimated retained bytes: the arrays and references, not the shared country codes. */
+    public int weight() {
+        long bytes = ENTRY_BYTES
+                + ARRAY_BYTES + 4L * countries.length
+                + ARRAY_BYTES + 2L * ids.length
+                + ARRAY_BYTES + depths.length;
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /** Number of trie nodes, for tests and footprint comparisons. */
+    int nodeCount() {
+        return ids.length;
+    }
+
+    /**
+     * Walks the trie once in preorder, keeping the path from the root, and stops at the end of
+     * every route.
+     */
+    final class Cursor {
+
+        private final int[] path = new int[MAX_ROUTE_LENGTH];
+        private int node;
+        private int length;
+
+        /** Advance to the next route; {@code false} after the last one. */
+        boolean next() {
+            while (node < ids.length) {
+                int depth = depths[node] & 0xFF;
+                path[depth] = ids[node] & 0xFFFF;
+                node++;
+                if (node == ids.length || (depths[node] & 0xFF) != depth + 1) {
+                    length = depth + 1;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Countries of the current route. */
+        int length() {
+            return length;
+        }
+
+        /** Id, in {@link #countries()}, of the {@code index}-th country of the current route. */
+        int id(int index) {
+            return path[reversed ? length - 1 - index : index];
+        }
+
+        List<String> route() {
+            String[] route = new String[length];
+            for (int i = 0; i < length; i++) {
+                route[i] = countries[id(i)];
+            }
+            return Arrays.asList(route);
+        }
+    }
+
+    /** Collects nodes in preorder, sharing each route's prefix with the route before it. */
+    static final class Builder {
+
+        private short[] ids;
+        private byte[] depths;
+        private int size;
+        private int routeCount;
+
+        private final int[] previous = new int[MAX_ROUTE_LENGTH];
+        private int previousLength;
+
+        Builder() {
+            this(64);
+        }
+
+        /** {@code capacity}: nodes the routes need; when exact, {@link #build} copies nothing. */
+        Builder(int capacity) {
+            ids = new short[capacity];
+            depths = new byte[capacity];
+        }
+
+        /** Add {@code route[0 .. length)} of table ids. */
+        void add(int[] route, int length) {
+            int shared = sharedPrefix(previous, previousLength, route, length);
+
+            if (size + length - shared > ids.length) {
+                int capacity = Math.max(ids.length * 2, size + length - shared);
+                ids = Arrays.copyOf(ids, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            for (int depth = shared; depth < length; depth++) {
+                ids[size] = (short) route[depth];
+                depths[size] = (byte) depth;
+                size++;
+            }
+
+            System.arraycopy(route, shared, previous, shared, length - shared);
+            previousLength = length;
+            routeCount++;
+        }
+
+        /**
+         * Nodes {@code route} can share with the route added before it. Never a last node: each
+         * route needs its own end, and the previous one keeps its own.
+         */
+        static int sharedPrefix(int[] previous, int previousLength, int[] route, int length) {
+            int limit = Math.min(previousLength, length) - 1;
+            int shared = 0;
+            while (shared < limit && previous[shared] == route[shared]) {
+                shared++;
+            }
+            return shared;
+        }
+
+        AllRoutesCacheEntry build(int maxDepth, int maxRoutes, String[] countries) {
+            return new AllRoutesCacheEntry(maxDepth, maxRoutes, countries,
+                    size == ids.length ? ids : Arrays.copyOf(ids, size),
+                    size == depths.length ? depths : Arrays.copyOf(depths, size),
+                    routeCount, false);
+        }
+    }
+
+    /**
+     * Routes that pass the depth cut, up to the limit, read straight from the trie: iteration
+     * walks it once; {@code get} decodes one route by climbing from its last node.
+     */
+    private final class RouteView extends AbstractList<List<String>> {
+
+        private final int maxDepth;
+        private final int limit;
+        private int[] ends;
+
+        RouteView(int maxDepth, int limit) {
+            this.maxDepth = maxDepth;
+            this.limit = limit;
+        }
+
+        private boolean accepts(int length) {
+            return length - 1 <= maxDepth;
+        }
+
+        /** Last node of every selected route, found on first use. */
+        private int[] ends() {
+            if (ends == null) {
+                int[] found = new int[Math.min(limit, routeCount)];
+                int count = 0;
+                for (int node = 0; node < ids.length && count < found.length; node++) {
+                    int depth = depths[node] & 0xFF;
+                    boolean end = node + 1 == ids.length || (depths[node + 1] & 0xFF) != depth + 1;
+                    if (end && accepts(depth + 1)) {
+                        found[count++] = node;
+                    }
+                }
+                ends = count == found.length ? found : Arrays.copyOf(found, count);
+            }
+            return ends;
+        }
+
+        @Override
+        public int size() {
+            return ends().length;
+        }
+
+        @Override
+        public List<String> get(int index) {
+            int node = ends()[index];
+            String[] route = new String[(depths[node] & 0xFF) + 1];
+            for (int depth = route.length - 1; depth >= 0; node--) {
+                if ((depths[node] & 0xFF) == depth) {
+                    route[reversed ? route.length - 1 - depth : depth] = countries[ids[node] & 0xFFFF];
+                    depth--;
+                }
+            }
+            return Arrays.asList(route);
+        }
+
+        @Override
+        public Iterator<List<String>> iterator() {
+            int size = size();
+            Cursor cursor = new Cursor();
+
+            return new Iterator<>() {
+                private int returned;
+
+                @Override
+                public boolean hasNext() {
+                    return returned < size;
+                }
+
+                @Override
+                public List<String> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    do {
+                        cursor.next();
+                    } while (!accepts(cursor.length()));
+                    returned++;
+                    return cursor.route();
+                }
+            };
+        }
+    }
 }
@@ -1,42 +1,365 @@
 package com.ovidiu.countryrouting.routing;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ovidiu.countryrouting.jfr.CacheSaveEvent;
+import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
-public class AllRoutesCachePersistence {
+/**
+ * Write-behind persistence of the all-routes cache: a memory-mapped binary file
+ * ({@link RouteCacheSnapshot}) plus an append-only log, one JSON line per entry, of what was
+ * computed since that file was written.
+ * <p>
+ * {@link #load} maps the file and replays the log, so startup does not depend on the number
+ * of entries; {@link #lookup} decodes one entry when the in-memory cache misses. {@link #append}
+ * only queues the entry. A single writer thread drains the queue in batches, waiting
+ * {@code debounce} after the first entry, so a burst of misses costs one buffered write and one
+ * flush. Replaying the log keeps the last line of every key. A line torn by a crash is cut off
+ * before the replay, so the next append starts a line of its own; other unreadable lines are
+ * skipped.
+ * <p>
+ * Once the log holds at least {@value #MIN_COMPACTION_LINES} lines, and one for every
+ * {@value #COMPACTION_RATIO} entries of the file, the writer compacts: it writes the file's
+ * entries updated with the log's into a temp file, renames that over the file and starts a new
+ * log. {@link #close} drains the queue and compacts once more.
+ * <p>
+ * The older {@code all-routes-cache.json} is not read: its keys carry no graph version, so none
+ * of its entries could be served, and they are recomputed on demand instead.
+ */
+@Slf4j
+public class AllRoutesCachePersistence implements AutoCloseable {
 
-    private static final Path FILE = Paths.get("all-routes-cache.json");
+    private static final Path DEFAULT_FILE = Paths.get("all-routes-cache.bin");
+    private static final Path DEFAULT_LOG = Paths.get("all-routes-cache.log");
+
+    private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(200);
+
+    static final int COMPACTION_RATIO = 2;
+    /** Logs shorter than this are never compacted while running. */
+    static final int MIN_COMPACTION_LINES = 1000;
+
+    private static final int MAX_BATCH = 1024;
+
+    /** One log line. */
+    record LogLine(String key, AllRoutesCacheEntry entry) {
+    }
+
+    private static final LogLine CLOSE = new LogLine(null, null);
+
+    private final Path file;
+    private final Path logFile;
+    private final Duration debounce;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public Map<String, AllRoutesCacheEntry> load() {
-        if (!Files.exists(FILE)) {
-            return new HashMap<>();
+    private volatile RouteCacheSnapshot snapshot = RouteCacheSnapshot.EMPTY;
+    /** Entries appended since {@link #snapshot} was written: the log's content, plus what is queued. */
+    private final Map<String, AllRoutesCacheEntry> recent = new ConcurrentHashMap<>();
+    private volatile Predicate<String> retain = key -> true;
+
+    private final BlockingQueue<LogLine> queue = new LinkedBlockingQueue<>();
+    private final Object lock = new Object();
+    private Thread writer;
+    private boolean closed;
+
+    /** Lines queued, and lines the writer is done with (written or failed); guarded by {@link #lock}. */
+    private long queued;
+    private long processed;
+
+    /** Lines in the log; writer thread only. */
+    private long lines;
+
+    public AllRoutesCachePersistence() {
+        this(DEFAULT_FILE, DEFAULT_LOG, DEFAULT_DEBOUNCE);
+    }
+
+    public AllRoutesCachePersistence(Path file, Path logFile, Duration debounce) {
+        this.file = file;
+        this.logFile = logFile;
+        this.debounce = debounce;
+    }
+
+    /** Keys a compaction keeps; the others are never looked up again (older graph versions). */
+    public void retain(Predicate<String> retain) {
+        this.retain = retain;
+    }
+
+    /** Map the file and replay the log. Call before the first {@link #append} or {@link #lookup}. */
+    public void load() {
+        try {
+            snapshot = RouteCacheSnapshot.open(file);
+        } catch (IOException e) {
+            log.error("Ignoring unreadable {}", file, e);
+        }
+
+        recent.clear();
+        lines = 0;
+        if (!Files.exists(logFile)) {
+            return;
         }
         try {
-            return objectMapper.readValue(
-                    Files.readAllBytes(FILE),
-                    new TypeReference<>() {
+            truncateTornTail();
+        } catch (IOException e) {
+            log.error("Failed to cut the torn tail of {}", logFile, e);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                try {
+                    LogLine logLine = objectMapper.readValue(line, LogLine.class);
+                    recent.put(logLine.key(), logLine.entry());
+                } catch (JsonProcessingException e) {
+                    log.warn("Skipping unreadable line {} of {}", lines, logFile);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read {}, keeping the {} entries read so far", logFile, recent.size(), e);
+        }
+    }
+
+    /** Cut the log after its last newline: what follows is a line whose append never finished. */
+    private void truncateTornTail() throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer chunk = ByteBuffer.allocate(8192);
+            long position = size;
+
+            while (position > 0) {
+                int length = (int) Math.min(chunk.capacity(), position);
+                position -= length;
+                chunk.clear().limit(length);
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, position + chunk.position()) < 0) break;
+                }
+                for (int i = length - 1; i >= 0; i--) {
+                    if (chunk.get(i) == '\n') {
+                        truncate(channel, position + i + 1, size);
+                        return;
                     }
-            );
+                }
+            }
+            truncate(channel, 0, size);
+        }
+    }
+
+    private void truncate(FileChannel channel, long keep, long size) throws IOException {
+        if (keep < size) {
+            log.warn("Cutting {} bytes of a torn line off {}", size - keep, logFile);
+            channel.truncate(keep);
+        }
+    }
+
+    /** Stored keys: those of the file plus those appended since (a key in both counts twice). */
+    public int size() {
+        return snapshot.size() + recent.size();
+    }
+
+    /** The stored entry of {@code key}, decoded from the file if it was not appended since. */
+    public AllRoutesCacheEntry lookup(String key) {
+        AllRoutesCacheEntry entry = recent.get(key);
+        return entry != null ? entry : snapshot.get(key);
+    }
+
+    /** Queue one entry for the writer; returns immediately. */
+    public void append(String key, AllRoutesCacheEntry entry) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (writer == null) {
+                writer = new Thread(this::writeLoop, "all-routes-cache-writer");
+                writer.setDaemon(true);
+                writer.start();
+            }
+            recent.put(key, entry);
+            queued++;
+            queue.add(new LogLine(key, entry));
+        }
+    }
+
+    /** Wait until every entry queued so far has been written (or has failed to). */
+    public void flush() throws InterruptedException {
+        synchronized (lock) {
+            long target = queued;
+            while (processed < target && writer != null && writer.isAlive()) {
+                lock.wait();
+            }
+        }
+    }
+
+    /** Drain the queue, stop the writer and compact. */
+    @Override
+    public void close() {
+        Thread stopping;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stopping = writer;
+            queue.add(CLOSE);
+        }
+
+        if (stopping != null) {
+            try {
+                stopping.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        // The writer is gone, so this thread is now the only one touching the files
+        if (lines > 0) {
+            compact();
+        }
+    }
+
+    private void writeLoop() {
+        List<LogLine> batch = new ArrayList<>();
+        boolean running = true;
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + debounce.toNanos();
+                while (batch.get(batch.size() - 1) != CLOSE && batch.size() < MAX_BATCH) {
+                    LogLine next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+
+            if (!batch.isEmpty() && batch.get(batch.size() - 1) == CLOSE) {
+                batch.remove(batch.size() - 1);
+                running = false;
+            }
+
+            write(batch);
+            if (lines >= MIN_COMPACTION_LINES && lines * COMPACTION_RATIO >= snapshot.size()) {
+                compact();
+            }
+
+            synchronized (lock) {
+                processed += batch.size();
+                lock.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<LogLine> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        CacheSaveEvent event = new CacheSaveEvent();
+        event.begin();
+        long bytes = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (LogLine line : batch) {
+                String json = objectMapper.writeValueAsString(line);
+                out.write(json);
+                out.write('\n');
+                bytes += json.length() + 1;
+            }
+            lines += batch.size();
+            event.succeeded = true;
+        } catch (IOException e) {
+            log.error("Failed to append {} entries to {}", batch.size(), logFile, e);
+        }
+
+        commit(event, logFile, batch.size(), bytes, false);
+    }
+
+    /**
+     * Write the file's entries updated with the log's, then start an empty log. Runs on the
+     * writer thread, or in {@link #close} once the writer is stopped: never on two threads at once.
+     */
+    void compact() {
+        Map<String, AllRoutesCacheEntry> written = new HashMap<>(recent);
+        if (!writeFile(snapshot, written)) {
+            return;
+        }
+
+        try {
+            snapshot = RouteCacheSnapshot.open(file);
+            Files.deleteIfExists(logFile);
+            lines = 0;
+            // Entries appended meanwhile, newer entries of a written key included, stay and reach
+            // the new log once the writer gets to them
+            written.forEach((key, entry) -> recent.remove(key, entry));
         } catch (IOException e) {
-            // On error, start with empty cache
-            return new HashMap<>();
+            log.error("Failed to reopen {}", file, e);
         }
     }
 
-    public void save(Map<String, AllRoutesCacheEntry> cache) {
+    /** Write {@code previous} updated with {@code entries} into a temp file renamed over the file. */
+    private boolean writeFile(RouteCacheSnapshot previous, Map<String, AllRoutesCacheEntry> entries) {
+        CacheSaveEvent event = new CacheSaveEvent();
+        event.begin();
+        int written = 0;
+        long bytes = 0;
+        Path temp = null;
         try {
-            objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(FILE.toFile(), cache);
+            Path target = file.toAbsolutePath();
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            written = RouteCacheSnapshot.write(temp, previous, entries, retain);
+            bytes = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            event.succeeded = true;
         } catch (IOException e) {
-            // You might want to log this in real code
+            log.error("Failed to write {}", file, e);
+            deleteQuietly(temp);
+        }
+
+        commit(event, file, written, bytes, true);
+        return event.succeeded;
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", temp, e);
+        }
+    }
+
+    private static void commit(CacheSaveEvent event, Path path, int entries, long bytes, boolean compaction) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = path.toString();
+            event.entries = entries;
+            event.bytes = bytes;
+            event.compaction = compaction;
+            event.commit();
         }
     }
 }
@@ -1,7 +1,10 @@
 package com.ovidiu.countryrouting.routing;
 
 import com.ovidiu.countryrouting.aop.TrackExecutionTime;
+import com.ovidiu.countryrouting.graph.CompiledGraph;
 import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.jfr.RouteSearchEvent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -11,41 +14,59 @@ public class AllRoutesFinder {
 
     private final GraphBuilder graphBuilder;
 
+    /** Estimated DFS size from which bitset enumeration is split across the fork/join pool. */
+    @Value("${routing.all-routes.parallel-threshold:200000}")
+    private double parallelThreshold = 200_000;
+
+    /**
+     * Deepest route count served. Counting cannot stop early the way {@code maxRoutes} stops an
+     * enumeration, and its cost grows about 3x per extra hop (FIN -> ESP: 0.2 s at 16, 1.4 s at
+     * 18, 10 s at 20).
+     */
+    @Value("${routing.all-routes.count-max-depth:18}")
+    private int countMaxDepth = 18;
+
     public AllRoutesFinder(GraphBuilder graphBuilder) {
         this.graphBuilder = graphBuilder;
     }
 
-    @TrackExecutionTime(includeArgs = true)
+    @TrackExecutionTime(tags = "maxDepth")
     public List<List<String>> findAllRoutes(
             String origin,
             String destination,
             int maxDepth,
             int maxRoutes
     ) {
-        Map<String, List<String>> graph = graphBuilder.buildGraph();
-
-        if (!graph.containsKey(origin) || !graph.containsKey(destination)) {
-            throw new IllegalArgumentException("Unknown country code");
-        }
+        CompiledGraph graph = getGraph(origin, destination);
+        RouteSearchEvent event = RouteSearchEvent.start("RECURSIVE", origin, destination, maxDepth);
 
         List<List<String>> results = new ArrayList<>();
-        LinkedList<String> path = new LinkedList<>();
-        Set<String> visited = new HashSet<>();
+        LinkedList<Integer> path = new LinkedList<>();
+        Set<Integer> visited = new HashSet<>();
+        SearchStats stats = new SearchStats();
 
-        dfs(graph, origin, destination, visited, path, results, maxDepth, maxRoutes);
+        int from = graph.id(origin);
+        int to = graph.id(destination);
+        if (graph.sameComponent(from, to)) {
+            int[] toTarget = BreadthFirstSearch.distancesTo(graph, to);
+            dfs(graph, from, to, toTarget, visited, path, results, maxDepth, maxRoutes, stats);
+        }
 
+        event.finish(stats.getNodesExpanded(), stats.getDepthReached(), results.size());
         return results;
     }
 
     private void dfs(
-            Map<String, List<String>> graph,
-            String current,
-            String destination,
-            Set<String> visited,
-            LinkedList<String> path,
+            CompiledGraph graph,
+            int current,
+            int destination,
+            int[] toTarget,
+            Set<Integer> visited,
+            LinkedList<Integer> path,
             List<List<String>> results,
             int maxDepth,
-            int maxRoutes
+            int maxRoutes,
+            SearchStats stats
     ) {
         if (path.size() > maxDepth || results.size() >= maxRoutes) {
             return;
@@ -54,12 +75,18 @@ public class AllRoutesFinder {
         visited.add(current);
         path.add(current);
 
-        if (current.equals(destination)) {
-            results.add(new ArrayList<>(path));
+        if (current == destination) {
+            results.add(graph.toCodes(path));
         } else {
-            for (String neighbor : graph.getOrDefault(current, List.of())) {
+            stats.expanded(path.size() - 1);
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                // Skip branches that cannot reach the destination within the remaining hops
+                if (toTarget[neighbor] < 0 || path.size() + toTarget[neighbor] > maxDepth) {
+                    continue;
+                }
                 if (!visited.contains(neighbor)) {
-                    dfs(graph, neighbor, destination, visited, path, results, maxDepth, maxRoutes);
+                    dfs(graph, neighbor, destination, toTarget, visited, path, results, maxDepth, maxRoutes, stats);
                 }
             }
         }
@@ -68,34 +95,43 @@ public class AllRoutesFinder {
         visited.remove(current);
     }
 
-    @TrackExecutionTime(includeArgs = true)
+    @TrackExecutionTime(tags = "maxDepth")
     public List<List<String>> findAllRoutesIterative(
             String origin,
             String destination,
             int maxDepth,
             int maxRoutes
     ) {
-        Map<String, List<String>> graph = getGraph(origin, destination);
+        CompiledGraph graph = getGraph(origin, destination);
+        int from = graph.id(origin);
+        int to = graph.id(destination);
+
+        RouteSearchEvent event = RouteSearchEvent.start("ITERATIVE", origin, destination, maxDepth);
+        SearchStats stats = new SearchStats();
 
         List<List<String>> results = new ArrayList<>();
+        if (!graph.sameComponent(from, to)) {
+            event.finish(0, 0, 0);
+            return results;
+        }
 
         // Stack holds (currentNode, currentPath, visitedSet)
         Deque<NodeState> stack = new ArrayDeque<>();
 
         stack.push(new NodeState(
-                origin,
-                List.of(origin),
-                Set.of(origin)
+                from,
+                List.of(from),
+                Set.of(from)
         ));
 
         while (!stack.isEmpty() && results.size() < maxRoutes) {
             NodeState state = stack.pop();
-            String current = state.node();
-            List<String> path = state.path();
-            Set<String> visited = state.visited();
+            int current = state.node();
+            List<Integer> path = state.path();
+            Set<Integer> visited = state.visited();
 
-            if (current.equals(destination)) {
-                results.add(path);
+            if (current == to) {
+                results.add(graph.toCodes(path));
                 continue;
             }
 
@@ -103,12 +139,14 @@ public class AllRoutesFinder {
                 continue;
             }
 
-            for (String neighbor : graph.getOrDefault(current, List.of())) {
+            stats.expanded(path.size() - 1);
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
                 if (!visited.contains(neighbor)) {
-                    List<String> newPath = new ArrayList<>(path);
+                    List<Integer> newPath = new ArrayList<>(path);
                     newPath.add(neighbor);
 
-                    Set<String> newVisited = new HashSet<>(visited);
+                    Set<Integer> newVisited = new HashSet<>(visited);
                     newVisited.add(neighbor);
 
                     stack.push(new NodeState(neighbor, newPath, newVisited));
@@ -116,18 +154,129 @@ public class AllRoutesFinder {
             }
         }
 
+        event.finish(stats.getNodesExpanded(), stats.getDepthReached(), results.size());
+        return results;
+    }
+
+    /**
+     * Same contract and result order as {@link #findAllRoutes}, computed by the
+     * allocation-free {@link BitsetRouteEnumerator}; routes become strings only when emitted.
+     * Large searches run on the {@link ParallelRouteEnumerator} with identical output.
+     */
+    @TrackExecutionTime(tags = "maxDepth")
+    public List<List<String>> findAllRoutesBitset(
+            String origin,
+            String destination,
+            int maxDepth,
+            int maxRoutes
+    ) {
+        CompiledGraph graph = getGraph(origin, destination);
+        RouteSearchEvent event = RouteSearchEvent.start("BITSET", origin, destination, maxDepth);
+
+        // Like findAllRoutes, maxDepth bounds the border crossings of a route
+        SharedSearchStats stats = new SharedSearchStats();
+        List<int[]> routes = ParallelRouteEnumerator.findRoutes(
+                graph, graph.id(origin), graph.id(destination), maxDepth, maxRoutes, parallelThreshold, stats
+        );
+
+        List<List<String>> results = new ArrayList<>(routes.size());
+        for (int[] route : routes) {
+            results.add(graph.toCodes(route, route.length));
+        }
+
+        event.finish(stats.getNodesExpanded(), stats.getDepthReached(), results.size());
         return results;
     }
 
-    private record NodeState(String node, List<String> path, Set<String> visited) {
+    /**
+     * Same contract and result order as {@link #findAllRoutes}, computed by the
+     * {@link MeetInTheMiddleEnumerator}; meant for deep {@code maxDepth} queries.
+     */
+    @TrackExecutionTime(tags = "maxDepth")
+    public List<List<String>> findAllRoutesMeetInTheMiddle(
+            String origin,
+            String destination,
+            int maxDepth,
+            int maxRoutes
+    ) {
+        CompiledGraph graph = getGraph(origin, destination);
+
+        RouteSearchEvent event = RouteSearchEvent.start("MEET_IN_THE_MIDDLE", origin, destination, maxDepth);
+
+        List<List<String>> results = new ArrayList<>();
+        MeetInTheMiddleEnumerator enumerator = new MeetInTheMiddleEnumerator(graph);
+        enumerator.enumerate(graph.id(origin), graph.id(destination), maxDepth, maxRoutes,
+                (path, length) -> results.add(graph.toCodes(path, length)));
+
+        event.finish(enumerator.nodesExpanded(), -1, results.size());
+        return results;
+    }
+
+    /**
+     * Streaming variant of {@link #findAllRoutesBitset}: validates the query now, and the returned
+     * stream runs a sequential bitset DFS that emits routes in the same order as it finds them.
+     */
+    public RouteStream streamAllRoutes(
+            String origin,
+            String destination,
+            int maxDepth,
+            int maxRoutes
+    ) {
+        CompiledGraph graph = getGraph(origin, destination);
+        int from = graph.id(origin);
+        int to = graph.id(destination);
+
+        return consumer -> {
+            RouteSearchEvent event = RouteSearchEvent.start("BITSET_STREAM", origin, destination, maxDepth);
+            BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(graph);
+
+            int emitted = enumerator.enumerate(from, to, maxDepth, maxRoutes,
+                    (path, length) -> consumer.test(graph.toCodes(path, length)));
+
+            event.finish(enumerator.nodesExpanded(), enumerator.depthReached(), emitted);
+            return emitted;
+        };
+    }
+
+    /**
+     * Number of routes with at most {@code maxDepth} border crossings, indexed by their
+     * crossings; the routes themselves are never built, so there is no {@code maxRoutes}.
+     *
+     * @throws IllegalArgumentException for unknown codes, or a {@code maxDepth} above
+     *                                  {@code routing.all-routes.count-max-depth}
+     */
+    @TrackExecutionTime(tags = "maxDepth")
+    public long[] countRoutes(
+            String origin,
+            String destination,
+            int maxDepth
+    ) {
+        if (maxDepth > countMaxDepth) {
+            throw new IllegalArgumentException("maxDepth must be at most " + countMaxDepth + " for route counts");
+        }
+
+        CompiledGraph graph = getGraph(origin, destination);
+        int from = graph.id(origin);
+
+        RouteSearchEvent event = RouteSearchEvent.start("COUNT", origin, destination, maxDepth);
+
+        boolean parallel = ParallelRouteEnumerator.estimateSearchSize(graph, from, maxDepth) >= parallelThreshold;
+        SharedSearchStats stats = new SharedSearchStats();
+        long[] counts = RouteCounter.count(graph, from, graph.id(destination), maxDepth, parallel, stats);
+
+        event.finish(stats.getNodesExpanded(), stats.getDepthReached(), Arrays.stream(counts).sum());
+        return counts;
+    }
+
+    private record NodeState(int node, List<Integer> path, Set<Integer> visited) {
     }
 
-    private Map<String, List<String>> getGraph(String origin, String destination) {
-        Map<String, List<String>> graph = graphBuilder.buildGraph();
+    private CompiledGraph getGraph(String origin, String destination) {
+        CompiledGraph graph = graphBuilder.getGraph();
 
-        if (!graph.containsKey(origin) || !graph.containsKey(destination)) {
+        if (!graph.contains(origin) || !graph.contains(destination)) {
             throw new IllegalArgumentException("Unknown country code");
         }
         return graph;
     }
-}
\ No newline at end of file
+}
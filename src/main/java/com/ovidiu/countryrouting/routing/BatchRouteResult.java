@@ -0,0 +1,20 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/** Answer to one {@link RoutePair}: either a route or the error the single-pair endpoint would return. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchRouteResult(String origin, String destination, List<String> route, String error) {
+
+    static BatchRouteResult route(RoutePair pair, List<String> route) {
+        return new BatchRouteResult(pair.origin(), pair.destination(), route, null);
+    }
+
+    static BatchRouteResult error(RoutePair pair, String error) {
+        return pair == null
+                ? new BatchRouteResult(null, null, null, error)
+                : new BatchRouteResult(pair.origin(), pair.destination(), null, error);
+    }
+}
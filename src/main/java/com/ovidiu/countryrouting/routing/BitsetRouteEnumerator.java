@@ -0,0 +1,179 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+
+import java.util.Arrays;
+
+/**
+ * Depth-bounded simple-path enumeration over a {@link CompiledGraph}.
+ * <p>
+ * Works on node ids only: visited nodes are a bitmask ({@code long[4]} for the ~250
+ * countries), the path is a preallocated {@code int[]} and recursion is replaced by an
+ * explicit stack of edge cursors, so the search loop itself does not allocate. Routes
+ * are emitted in the same order as a recursive DFS that follows the borders order.
+ * <p>
+ * Unless disabled, branches that cannot reach the destination within the remaining hops are
+ * cut using the hop distance of every node to the destination ({@code depth + dist > maxHops}).
+ * That distance ignores the visited set, so it never overestimates and the routes emitted,
+ * and their order, are exactly those of the unpruned search.
+ * <p>
+ * An instance keeps mutable scratch state: reuse it on one thread only.
+ */
+public final class BitsetRouteEnumerator {
+
+    private final CompiledGraph graph;
+    private final long[] visited;
+    private final int[] path;
+    private final int[] cursor;
+    private final boolean prune;
+
+    private int[] toTarget;
+    private int toTargetOf = -1;
+    private long nodesExpanded;
+    private int depthReached;
+
+    public BitsetRouteEnumerator(CompiledGraph graph) {
+        this(graph, true);
+    }
+
+    public BitsetRouteEnumerator(CompiledGraph graph, boolean prune) {
+        this.graph = graph;
+        this.visited = new long[(graph.size() + 63) >>> 6];
+        this.path = new int[graph.size()];
+        this.cursor = new int[graph.size()];
+        this.prune = prune;
+    }
+
+    /** Nodes whose borders were scanned, summed over every search run by this instance. */
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /** Deepest level expanded (hops from the origin), over every search run by this instance. */
+    public int depthReached() {
+        return depthReached;
+    }
+
+    /**
+     * Emit every simple route from {@code origin} to {@code destination} with at most
+     * {@code maxHops} border crossings, stopping after {@code maxRoutes} routes.
+     *
+     * @return number of routes emitted
+     */
+    public int enumerate(int origin, int destination, int maxHops, int maxRoutes, RouteSink sink) {
+        if (maxHops < 0 || maxRoutes <= 0) {
+            return 0;
+        }
+
+        Arrays.fill(visited, 0L);
+        path[0] = origin;
+
+        if (origin == destination) {
+            sink.accept(path, 1);
+            return 1;
+        }
+        if (!graph.sameComponent(origin, destination)) {
+            return 0;
+        }
+
+        mark(origin);
+        return search(0, destination, maxHops, maxRoutes, sink);
+    }
+
+    /**
+     * Continue the search below a fixed prefix (origin first, destination not on it),
+     * emitting only routes that extend {@code prefix[0..prefixLength)}.
+     *
+     * @return number of routes emitted
+     */
+    public int enumerateFrom(int[] prefix, int prefixLength, int destination,
+                             int maxHops, int maxRoutes, RouteSink sink) {
+        if (prefixLength - 1 > maxHops || maxRoutes <= 0) {
+            return 0;
+        }
+
+        Arrays.fill(visited, 0L);
+        for (int i = 0; i < prefixLength; i++) {
+            path[i] = prefix[i];
+            mark(prefix[i]);
+        }
+
+        return search(prefixLength - 1, destination, maxHops, maxRoutes, sink);
+    }
+
+    private int search(int base, int destination, int maxHops, int maxRoutes, RouteSink sink) {
+        if (prune) {
+            distancesTo(destination);
+            if (!canReach(path[base], base, maxHops)) {
+                return 0;
+            }
+        }
+
+        int emitted = 0;
+        int depth = base;
+        cursor[depth] = graph.edgeStart(path[depth]);
+        nodesExpanded++;
+
+        while (depth >= base) {
+            int current = path[depth];
+
+            if (depth < maxHops && cursor[depth] < graph.edgeEnd(current)) {
+                int neighbor = graph.neighborAt(cursor[depth]++);
+
+                if (isVisited(neighbor)) {
+                    continue;
+                }
+
+                if (neighbor == destination) {
+                    path[depth + 1] = neighbor;
+                    emitted++;
+                    if (!sink.accept(path, depth + 2) || emitted >= maxRoutes) {
+                        return emitted;
+                    }
+                    continue;
+                }
+
+                if (prune && !canReach(neighbor, depth + 1, maxHops)) {
+                    continue;
+                }
+
+                depth++;
+                path[depth] = neighbor;
+                cursor[depth] = graph.edgeStart(neighbor);
+                mark(neighbor);
+                nodesExpanded++;
+                if (depth > depthReached) depthReached = depth;
+            } else {
+                unmark(current);
+                depth--;
+            }
+        }
+
+        return emitted;
+    }
+
+    /** Distances are per destination; consecutive searches towards the same one reuse them. */
+    private void distancesTo(int destination) {
+        if (toTargetOf != destination) {
+            toTarget = BreadthFirstSearch.distancesTo(graph, destination);
+            toTargetOf = destination;
+        }
+    }
+
+    private boolean canReach(int node, int depth, int maxHops) {
+        int remaining = toTarget[node];
+        return remaining >= 0 && depth + remaining <= maxHops;
+    }
+
+    private boolean isVisited(int node) {
+        return (visited[node >>> 6] & (1L << node)) != 0;
+    }
+
+    private void mark(int node) {
+        visited[node >>> 6] |= 1L << node;
+    }
+
+    private void unmark(int node) {
+        visited[node >>> 6] &= ~(1L << node);
+    }
+}
@@ -0,0 +1,184 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.ShortestPathTable;
+
+import java.util.Arrays;
+
+/** Single-source BFS from the origin, stopping as soon as the destination is discovered. */
+public final class BreadthFirstSearch {
+
+    private BreadthFirstSearch() {
+    }
+
+    /** Node ids of a shortest route (origin first), or {@code null} when unreachable. */
+    public static int[] route(CompiledGraph graph, int origin, int destination, SearchStats stats) {
+        if (origin == destination) {
+            return new int[]{origin};
+        }
+        if (!graph.sameComponent(origin, destination)) {
+            return null;
+        }
+
+        int[] queue = new int[graph.size()];
+        int[] parent = new int[graph.size()];
+        int[] depth = new int[graph.size()];
+        Arrays.fill(parent, -1);
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = origin;
+        parent[origin] = origin;
+
+        while (head < tail) {
+            int current = queue[head++];
+            stats.expanded(depth[current]);
+
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (parent[neighbor] < 0) {
+                    parent[neighbor] = current;
+                    depth[neighbor] = depth[current] + 1;
+                    queue[tail++] = neighbor;
+
+                    if (neighbor == destination) {
+                        return walkBack(parent, origin, destination, depth[destination]);
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Full BFS tree of {@code origin}: the parent of every reached node ({@code origin} for
+     * itself, {@code -1} when unreachable). Parents are assigned in the same order as
+     * {@link #route}, so walking the tree yields exactly the route that search returns.
+     */
+    public static int[] tree(CompiledGraph graph, int origin) {
+        int[] queue = new int[graph.size()];
+        int[] parent = new int[graph.size()];
+        Arrays.fill(parent, -1);
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = origin;
+        parent[origin] = origin;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (parent[neighbor] < 0) {
+                    parent[neighbor] = current;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return parent;
+    }
+
+    /** Route from the tree's origin to {@code destination}, or {@code null} when unreachable. */
+    public static int[] walkTree(int[] parent, int destination) {
+        if (parent[destination] < 0) {
+            return null;
+        }
+
+        int hops = 0;
+        for (int step = destination; parent[step] != step; step = parent[step]) {
+            hops++;
+        }
+
+        int[] path = new int[hops + 1];
+        int step = destination;
+        for (int i = hops; i >= 0; i--) {
+            path[i] = step;
+            step = parent[step];
+        }
+        return path;
+    }
+
+    /**
+     * Hop distance from every node to {@code destination} ({@code -1} when it cannot reach it).
+     * Read from the all-pairs table when the graph has one, otherwise a BFS over the in-edges.
+     */
+    public static int[] distancesTo(CompiledGraph graph, int destination) {
+        int[] distance = new int[graph.size()];
+        ShortestPathTable table = graph.shortestPaths();
+
+        if (table != null) {
+            for (int node = 0; node < distance.length; node++) {
+                distance[node] = table.distance(node, destination);
+            }
+            return distance;
+        }
+        return reverseDistances(graph, destination);
+    }
+
+    /** Hop distance from {@code origin} to every node ({@code -1} when unreachable). */
+    public static int[] distancesFrom(CompiledGraph graph, int origin) {
+        int[] distance = new int[graph.size()];
+        ShortestPathTable table = graph.shortestPaths();
+
+        if (table != null) {
+            for (int node = 0; node < distance.length; node++) {
+                distance[node] = table.distance(origin, node);
+            }
+            return distance;
+        }
+
+        Arrays.fill(distance, -1);
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = origin;
+        distance[origin] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (distance[neighbor] < 0) {
+                    distance[neighbor] = distance[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /** BFS from {@code destination} against the border direction. */
+    static int[] reverseDistances(CompiledGraph graph, int destination) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[graph.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = destination;
+        distance[destination] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int e = graph.inEdgeStart(current); e < graph.inEdgeEnd(current); e++) {
+                int neighbor = graph.inNeighborAt(e);
+                if (distance[neighbor] < 0) {
+                    distance[neighbor] = distance[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static int[] walkBack(int[] parent, int origin, int destination, int hops) {
+        int[] path = new int[hops + 1];
+        int step = destination;
+        for (int i = hops; i > 0; i--) {
+            path[i] = step;
+            step = parent[step];
+        }
+        path[0] = origin;
+        return path;
+    }
+}
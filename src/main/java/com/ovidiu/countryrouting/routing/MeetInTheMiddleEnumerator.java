@@ -0,0 +1,281 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Depth-bounded simple-path enumeration that meets in the middle.
+ * <p>
+ * For {@code maxHops = D}, every simple half-path of up to {@code D / 2} hops that ends at the
+ * destination is collected first by a DFS over the in-edges, grouped by the node it starts
+ * from (the meeting node). A forward DFS from the origin then runs only {@code ceil(D / 2)}
+ * hops deep: routes that reach the destination on the way are emitted directly, and every
+ * forward half-path ending in a meeting node is joined with that node's half-paths whose
+ * visited bitmask does not overlap its own. Both halves are pruned with hop distances
+ * (to the destination, from the origin), so the deep DFS levels are never walked one by one.
+ * <p>
+ * Output equals {@link BitsetRouteEnumerator}'s, order included: a DFS emits routes in
+ * lexicographic order of their neighbor positions (the index of each hop in the borders
+ * list), the forward half runs in that order, and each meeting node's half-paths are sorted
+ * by the same key once per query. Stopping after {@code maxRoutes} therefore returns exactly
+ * the same prefix.
+ * <p>
+ * Memory grows with the number of backward half-paths; an instance keeps scratch state and
+ * is meant for one thread.
+ */
+public final class MeetInTheMiddleEnumerator {
+
+    private final CompiledGraph graph;
+    private final int words;
+    private final long[] visited;
+    private final int[] path;
+    private final int[] cursor;
+
+    private long nodesExpanded;
+    private long joinsChecked;
+
+    public MeetInTheMiddleEnumerator(CompiledGraph graph) {
+        this.graph = graph;
+        this.words = (graph.size() + 63) >>> 6;
+        this.visited = new long[words];
+        this.path = new int[graph.size()];
+        this.cursor = new int[graph.size()];
+    }
+
+    /** Nodes whose borders were scanned by either half, summed over every search of this instance. */
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /** Forward/backward half-path pairs compared during joins. */
+    public long joinsChecked() {
+        return joinsChecked;
+    }
+
+    /**
+     * Emit every simple route from {@code origin} to {@code destination} with at most
+     * {@code maxHops} border crossings, stopping after {@code maxRoutes} routes.
+     *
+     * @return number of routes emitted
+     */
+    public int enumerate(int origin, int destination, int maxHops, int maxRoutes, RouteSink sink) {
+        if (maxHops < 0 || maxRoutes <= 0) {
+            return 0;
+        }
+
+        path[0] = origin;
+        if (origin == destination) {
+            sink.accept(path, 1);
+            return 1;
+        }
+        if (!graph.sameComponent(origin, destination)) {
+            return 0;
+        }
+
+        int forwardHops = (maxHops + 1) / 2;
+        int backwardHops = maxHops - forwardHops;
+
+        int[] toTarget = BreadthFirstSearch.distancesTo(graph, destination);
+        if (toTarget[origin] < 0 || toTarget[origin] > maxHops) {
+            return 0;
+        }
+
+        HalfPath[][] meeting = backwardHalves(origin, destination, forwardHops, backwardHops);
+        return forward(origin, destination, forwardHops, maxHops, maxRoutes, toTarget, meeting, sink);
+    }
+
+    // ---------------------------------------------------------
+    // Backward halves: meeting node -> ... -> destination
+    // ---------------------------------------------------------
+
+    /** A simple path from a meeting node to the destination, in forward order. */
+    private record HalfPath(int[] nodes, long[] mask, int[] ranks) {
+    }
+
+    private HalfPath[][] backwardHalves(int origin, int destination, int forwardHops, int backwardHops) {
+        List<List<HalfPath>> byMeeting = new ArrayList<>(graph.size());
+        for (int i = 0; i < graph.size(); i++) {
+            byMeeting.add(null);
+        }
+
+        if (backwardHops > 0) {
+            int[] fromOrigin = BreadthFirstSearch.distancesFrom(graph, origin);
+
+            // Walk in-edges: trail[0] = destination, trail[j] = node j hops before it
+            long[] seen = new long[words];
+            int[] trail = new int[backwardHops + 1];
+            int[] inCursor = new int[backwardHops + 1];
+
+            trail[0] = destination;
+            mark(seen, destination);
+            inCursor[0] = graph.inEdgeStart(destination);
+            nodesExpanded++;
+            int depth = 0;
+
+            while (depth >= 0) {
+                int current = trail[depth];
+
+                if (depth < backwardHops && inCursor[depth] < graph.inEdgeEnd(current)) {
+                    int previous = graph.inNeighborAt(inCursor[depth]++);
+
+                    // The origin only ever starts a route, and a route through this node
+                    // needs at least fromOrigin + (depth + 1) hops
+                    int hops = fromOrigin[previous];
+                    if (previous == origin || isMarked(seen, previous)
+                            || hops < 0 || hops + depth + 1 > forwardHops + backwardHops) {
+                        continue;
+                    }
+
+                    depth++;
+                    trail[depth] = previous;
+                    mark(seen, previous);
+                    if (hops <= forwardHops) {
+                        addHalf(byMeeting, trail, depth);
+                    }
+
+                    inCursor[depth] = graph.inEdgeStart(previous);
+                    nodesExpanded++;
+                } else {
+                    unmark(seen, current);
+                    depth--;
+                }
+            }
+        }
+
+        HalfPath[][] meeting = new HalfPath[graph.size()][];
+        for (int node = 0; node < meeting.length; node++) {
+            List<HalfPath> halves = byMeeting.get(node);
+            if (halves != null) {
+                HalfPath[] sorted = halves.toArray(HalfPath[]::new);
+                Arrays.sort(sorted, (a, b) -> Arrays.compare(a.ranks(), b.ranks()));
+                meeting[node] = sorted;
+            }
+        }
+        return meeting;
+    }
+
+    private void addHalf(List<List<HalfPath>> byMeeting, int[] trail, int depth) {
+        int meetingNode = trail[depth];
+        int[] nodes = new int[depth + 1];
+        long[] mask = new long[words];
+        int[] ranks = new int[depth];
+
+        for (int i = 0; i <= depth; i++) {
+            nodes[i] = trail[depth - i];
+            if (i > 0) {
+                mark(mask, nodes[i]); // the meeting node itself is shared with the forward half
+                ranks[i - 1] = rank(nodes[i - 1], nodes[i]);
+            }
+        }
+
+        List<HalfPath> halves = byMeeting.get(meetingNode);
+        if (halves == null) {
+            halves = new ArrayList<>();
+            byMeeting.set(meetingNode, halves);
+        }
+        halves.add(new HalfPath(nodes, mask, ranks));
+    }
+
+    /** Position of {@code to} in the borders list of {@code from}, i.e. the order a DFS visits it. */
+    private int rank(int from, int to) {
+        for (int e = graph.edgeStart(from); e < graph.edgeEnd(from); e++) {
+            if (graph.neighborAt(e) == to) return e - graph.edgeStart(from);
+        }
+        throw new IllegalStateException("No border " + graph.code(from) + " -> " + graph.code(to));
+    }
+
+    // ---------------------------------------------------------
+    // Forward half: origin -> ... -> meeting node, joined in DFS order
+    // ---------------------------------------------------------
+
+    private int forward(int origin, int destination, int forwardHops, int maxHops, int maxRoutes,
+                        int[] toTarget, HalfPath[][] meeting, RouteSink sink) {
+        Arrays.fill(visited, 0L);
+        mark(visited, origin);
+
+        int emitted = 0;
+        int depth = 0;
+        cursor[0] = graph.edgeStart(origin);
+        nodesExpanded++;
+
+        while (depth >= 0) {
+            int current = path[depth];
+
+            if (depth < forwardHops && cursor[depth] < graph.edgeEnd(current)) {
+                int neighbor = graph.neighborAt(cursor[depth]++);
+
+                if (isMarked(visited, neighbor)) {
+                    continue;
+                }
+
+                if (neighbor == destination) {
+                    path[depth + 1] = neighbor;
+                    emitted++;
+                    if (!sink.accept(path, depth + 2) || emitted >= maxRoutes) {
+                        return emitted;
+                    }
+                    continue;
+                }
+
+                int remaining = toTarget[neighbor];
+                if (remaining < 0 || depth + 1 + remaining > maxHops) {
+                    continue;
+                }
+
+                if (depth + 1 == forwardHops) {
+                    HalfPath[] halves = meeting[neighbor];
+                    if (halves == null) continue;
+
+                    path[depth + 1] = neighbor;
+                    mark(visited, neighbor);
+                    for (HalfPath half : halves) {
+                        joinsChecked++;
+                        if (overlaps(half.mask())) continue;
+
+                        int[] nodes = half.nodes();
+                        System.arraycopy(nodes, 1, path, depth + 2, nodes.length - 1);
+                        emitted++;
+                        if (!sink.accept(path, depth + 1 + nodes.length) || emitted >= maxRoutes) {
+                            return emitted;
+                        }
+                    }
+                    unmark(visited, neighbor);
+                    continue;
+                }
+
+                depth++;
+                path[depth] = neighbor;
+                cursor[depth] = graph.edgeStart(neighbor);
+                mark(visited, neighbor);
+                nodesExpanded++;
+            } else {
+                unmark(visited, current);
+                depth--;
+            }
+        }
+
+        return emitted;
+    }
+
+    private boolean overlaps(long[] mask) {
+        for (int i = 0; i < words; i++) {
+            if ((visited[i] & mask[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    private static boolean isMarked(long[] bits, int node) {
+        return (bits[node >>> 6] & (1L << node)) != 0;
+    }
+
+    private static void mark(long[] bits, int node) {
+        bits[node >>> 6] |= 1L << node;
+    }
+
+    private static void unmark(long[] bits, int node) {
+        bits[node >>> 6] &= ~(1L << node);
+    }
+}
@@ -0,0 +1,257 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fork/join variant of {@link BitsetRouteEnumerator}.
+ * <p>
+ * The first one or two DFS levels are expanded into an ordered list of subtree prefixes,
+ * each searched by its own {@link RecursiveTask} on a dedicated pool. Results are merged in
+ * prefix order, so the output is exactly the sequential output: every subtree keeps an
+ * atomic route count, and a subtree stops as soon as it and the subtrees before it have
+ * found {@code maxRoutes} routes, since anything it would add could never be returned.
+ * Work counters are kept per task and summed into a {@link SharedSearchStats} when it ends.
+ */
+public final class ParallelRouteEnumerator {
+
+    private static final int MAX_SPLIT_DEPTH = 2;
+
+    private final CompiledGraph graph;
+    private final ForkJoinPool pool;
+
+    public ParallelRouteEnumerator(CompiledGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /** Dedicated pool, so long enumerations never starve the common pool. */
+    public static ForkJoinPool sharedPool() {
+        return PoolHolder.POOL;
+    }
+
+    /**
+     * Enumerate on the shared pool when the estimated search size reaches {@code threshold},
+     * sequentially otherwise. Routes are returned as node-id paths in DFS order.
+     */
+    public static List<int[]> findRoutes(CompiledGraph graph, int origin, int destination,
+                                         int maxHops, int maxRoutes, double threshold) {
+        return findRoutes(graph, origin, destination, maxHops, maxRoutes, threshold, new SharedSearchStats());
+    }
+
+    /** {@link #findRoutes(CompiledGraph, int, int, int, int, double)}, adding its work to {@code stats}. */
+    public static List<int[]> findRoutes(CompiledGraph graph, int origin, int destination,
+                                         int maxHops, int maxRoutes, double threshold, SharedSearchStats stats) {
+        if (estimateSearchSize(graph, origin, maxHops) >= threshold) {
+            return new ParallelRouteEnumerator(graph, sharedPool())
+                    .enumerate(origin, destination, maxHops, maxRoutes, stats);
+        }
+
+        List<int[]> routes = new ArrayList<>();
+        BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(graph);
+        enumerator.enumerate(origin, destination, maxHops, maxRoutes,
+                (path, length) -> routes.add(Arrays.copyOf(path, length)));
+        stats.add(enumerator.nodesExpanded(), enumerator.depthReached());
+        return routes;
+    }
+
+    /**
+     * Rough number of DFS nodes: the origin's degree times the average branching factor
+     * (average degree of connected countries, minus the edge we came from) per extra hop.
+     */
+    public static double estimateSearchSize(CompiledGraph graph, int origin, int maxHops) {
+        if (maxHops <= 0) {
+            return 0;
+        }
+
+        int connected = 0;
+        for (int node = 0; node < graph.size(); node++) {
+            if (graph.degree(node) > 0) connected++;
+        }
+        double branching = connected == 0 ? 1 : Math.max(1.0, (double) graph.edgeCount() / connected - 1);
+
+        return graph.degree(origin) * Math.pow(branching, maxHops - 1);
+    }
+
+    public List<int[]> enumerate(int origin, int destination, int maxHops, int maxRoutes) {
+        return enumerate(origin, destination, maxHops, maxRoutes, new SharedSearchStats());
+    }
+
+    public List<int[]> enumerate(int origin, int destination, int maxHops, int maxRoutes, SharedSearchStats stats) {
+        if (maxHops < 0 || maxRoutes <= 0) {
+            return List.of();
+        }
+        if (origin == destination) {
+            return List.<int[]>of(new int[]{origin});
+        }
+        if (maxHops == 0 || !graph.sameComponent(origin, destination)) {
+            return List.of();
+        }
+
+        return pool.invoke(new FrontierTask(origin, destination, maxHops, maxRoutes, stats));
+    }
+
+    /** Either a route found while splitting, or a subtree prefix still to be searched. */
+    private record WorkItem(int[] nodes, boolean route) {
+    }
+
+    private final class FrontierTask extends RecursiveTask<List<int[]>> {
+
+        private final int origin;
+        private final int destination;
+        private final int maxHops;
+        private final int maxRoutes;
+        private final SharedSearchStats stats;
+        private long expanded;
+        private int deepest;
+
+        FrontierTask(int origin, int destination, int maxHops, int maxRoutes, SharedSearchStats stats) {
+            this.origin = origin;
+            this.destination = destination;
+            this.maxHops = maxHops;
+            this.maxRoutes = maxRoutes;
+            this.stats = stats;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            int splitDepth = graph.degree(origin) >= pool.getParallelism() ? 1 : MAX_SPLIT_DEPTH;
+
+            List<WorkItem> items = new ArrayList<>();
+            int[] prefix = new int[MAX_SPLIT_DEPTH + 1];
+            prefix[0] = origin;
+            split(prefix, 0, Math.min(splitDepth, maxHops), items);
+            stats.add(expanded, deepest);
+
+            AtomicIntegerArray found = new AtomicIntegerArray(items.size());
+            List<SubtreeTask> tasks = new ArrayList<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).route()) {
+                    found.set(i, 1);
+                } else {
+                    tasks.add(new SubtreeTask(i, items.get(i).nodes(), destination, maxHops, maxRoutes, found, stats));
+                }
+            }
+
+            ForkJoinTask.invokeAll(tasks);
+
+            List<int[]> routes = new ArrayList<>();
+            int next = 0;
+            for (WorkItem item : items) {
+                if (routes.size() >= maxRoutes) break;
+
+                if (item.route()) {
+                    routes.add(item.nodes());
+                } else {
+                    for (int[] route : tasks.get(next).join()) {
+                        if (routes.size() >= maxRoutes) break;
+                        routes.add(route);
+                    }
+                    next++;
+                }
+            }
+            return routes;
+        }
+
+        /** Expand {@code prefix[0..depth]} in DFS order down to {@code splitDepth}. */
+        private void split(int[] prefix, int depth, int splitDepth, List<WorkItem> items) {
+            int current = prefix[depth];
+            expanded++;
+            deepest = Math.max(deepest, depth);
+
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (contains(prefix, depth, neighbor)) continue;
+
+                prefix[depth + 1] = neighbor;
+                if (neighbor == destination) {
+                    items.add(new WorkItem(Arrays.copyOf(prefix, depth + 2), true));
+                } else if (depth + 1 < splitDepth) {
+                    split(prefix, depth + 1, splitDepth, items);
+                } else if (depth + 1 < maxHops) {
+                    items.add(new WorkItem(Arrays.copyOf(prefix, depth + 2), false));
+                }
+            }
+        }
+
+        private boolean contains(int[] prefix, int depth, int node) {
+            for (int i = 0; i <= depth; i++) {
+                if (prefix[i] == node) return true;
+            }
+            return false;
+        }
+    }
+
+    private final class SubtreeTask extends RecursiveTask<List<int[]>> {
+
+        private final int index;
+        private final int[] prefix;
+        private final int destination;
+        private final int maxHops;
+        private final int maxRoutes;
+        private final AtomicIntegerArray found;
+        private final SharedSearchStats stats;
+
+        SubtreeTask(int index, int[] prefix, int destination, int maxHops, int maxRoutes,
+                    AtomicIntegerArray found, SharedSearchStats stats) {
+            this.index = index;
+            this.prefix = prefix;
+            this.destination = destination;
+            this.maxHops = maxHops;
+            this.maxRoutes = maxRoutes;
+            this.found = found;
+            this.stats = stats;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            List<int[]> routes = new ArrayList<>();
+            if (foundUpTo(index) >= maxRoutes) {
+                return routes;
+            }
+
+            BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(graph);
+            enumerator.enumerateFrom(prefix, prefix.length, destination, maxHops, maxRoutes,
+                    (path, length) -> {
+                        routes.add(Arrays.copyOf(path, length));
+                        found.incrementAndGet(index);
+                        return foundUpTo(index) < maxRoutes;
+                    });
+            if (enumerator.nodesExpanded() > 0) {
+                // The enumerator only tracks levels below the prefix it was given
+                stats.add(enumerator.nodesExpanded(), Math.max(enumerator.depthReached(), prefix.length - 1));
+            }
+            return routes;
+        }
+
+        private int foundUpTo(int last) {
+            int total = 0;
+            for (int i = 0; i <= last; i++) {
+                total += found.get(i);
+            }
+            return total;
+        }
+    }
+
+    private static final class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("route-enumeration-" + thread.getPoolIndex());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                null,
+                false
+        );
+    }
+}
@@ -0,0 +1,338 @@
+package com.ovidiu.countryrouting.routing;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Read-only all-routes cache file, memory-mapped and decoded one entry per lookup.
+ * <p>
+ * Opening reads the 24-byte header and the country dictionary, whatever the number of entries;
+ * everything else stays in the page cache until a lookup touches it. Layout (big-endian):
+ * <pre>
+ *   header      magic "ARC1", version, entry count, index offset, keys offset, dictionary offset
+ *   data        per entry: maxDepth, maxRoutes, route count (ints), then per route
+ *               one length byte and one country-id byte per country
+ *   index       per entry, sorted by key bytes: key offset (int), key length (u16), data offset (int)
+ *   keys        UTF-8 keys, back to back
+ *   dictionary  country count (u16), then per country a length byte and its ASCII code
+ * </pre>
+ * Country ids are single bytes, so a file holds at most {@value #MAX_COUNTRIES} countries.
+ * Offsets are ints and the file is mapped as one buffer, so it stays below 2 GiB: a write that
+ * would pass that fails, and a larger or inconsistent file is rejected on open.
+ */
+final class RouteCacheSnapshot {
+
+    static final int MAX_COUNTRIES = 256;
+
+    private static final int MAGIC = 0x41524331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int SLOT_BYTES = 10;
+
+    static final RouteCacheSnapshot EMPTY = new RouteCacheSnapshot(emptyFile());
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int indexOffset;
+    private final int keysOffset;
+    private final String[] countries;
+
+    private RouteCacheSnapshot(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not an all-routes cache file");
+        }
+        this.buffer = buffer;
+        this.entryCount = buffer.getInt(8);
+        this.indexOffset = buffer.getInt(12);
+        this.keysOffset = buffer.getInt(16);
+
+        int dictionaryOffset = buffer.getInt(20);
+        if (entryCount < 0 || indexOffset < HEADER_BYTES
+                || (long) indexOffset + (long) entryCount * SLOT_BYTES > keysOffset
+                || keysOffset > dictionaryOffset || dictionaryOffset > buffer.capacity() - 2) {
+            throw new IllegalStateException("Header offsets outside the file");
+        }
+        this.countries = new String[buffer.getShort(dictionaryOffset) & 0xFFFF];
+        int position = dictionaryOffset + 2;
+        for (int id = 0; id < countries.length; id++) {
+            byte[] code = new byte[buffer.get(position) & 0xFF];
+            buffer.get(position + 1, code);
+            countries[id] = new String(code, StandardCharsets.US_ASCII);
+            position += 1 + code.length;
+        }
+    }
+
+    /** Map {@code file}; {@link #EMPTY} when it does not exist. */
+    static RouteCacheSnapshot open(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return EMPTY;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() >= Integer.MAX_VALUE) {
+                throw new IOException(file + ": " + channel.size() + " bytes, past the int offsets of the format");
+            }
+            return new RouteCacheSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (RuntimeException e) {
+            // Truncated or corrupt: offsets past the buffer, a dictionary cut short
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    int size() {
+        return entryCount;
+    }
+
+    /** The entry stored under {@code key}, decoded now, or {@code null}. */
+    AllRoutesCacheEntry get(String key) {
+        int slot = find(key.getBytes(StandardCharsets.UTF_8));
+        return slot < 0 ? null : decode(dataOffset(slot));
+    }
+
+    private int find(byte[] key) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Unsigned byte order, the order the index is written in. */
+    private int compareKey(int slot, byte[] key) {
+        int offset = keysOffset + buffer.getInt(slotOffset(slot));
+        int length = buffer.getShort(slotOffset(slot) + 4) & 0xFFFF;
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private byte[] key(int slot) {
+        byte[] key = new byte[buffer.getShort(slotOffset(slot) + 4) & 0xFFFF];
+        buffer.get(keysOffset + buffer.getInt(slotOffset(slot)), key);
+        return key;
+    }
+
+    private int dataOffset(int slot) {
+        return buffer.getInt(slotOffset(slot) + 6);
+    }
+
+    private int slotOffset(int slot) {
+        return indexOffset + slot * SLOT_BYTES;
+    }
+
+    /** Decode straight into a trie, with a table of only the countries the entry uses. */
+    private AllRoutesCacheEntry decode(int offset) {
+        int maxDepth = buffer.getInt(offset);
+        int maxRoutes = buffer.getInt(offset + 4);
+        int count = buffer.getInt(offset + 8);
+
+        int[] local = new int[countries.length];
+        Arrays.fill(local, -1);
+        String[] table = new String[countries.length];
+        int tableSize = 0;
+
+        // First pass: exact node count, so the builder allocates the trie once
+        int nodes = 0;
+        int previous = -1;
+        int position = offset + 12;
+        for (int r = 0; r < count; r++) {
+            int length = buffer.get(position) & 0xFF;
+            nodes += length - sharedPrefix(previous, position, length);
+            previous = position;
+            position += 1 + length;
+        }
+
+        AllRoutesCacheEntry.Builder builder = new AllRoutesCacheEntry.Builder(nodes);
+        int[] route = new int[AllRoutesCacheEntry.MAX_ROUTE_LENGTH];
+        position = offset + 12;
+        for (int r = 0; r < count; r++) {
+            int length = buffer.get(position++) & 0xFF;
+            for (int i = 0; i < length; i++) {
+                int id = buffer.get(position++) & 0xFF;
+                if (local[id] < 0) {
+                    local[id] = tableSize;
+                    table[tableSize++] = countries[id];
+                }
+                route[i] = local[id];
+            }
+            builder.add(route, length);
+        }
+        return builder.build(maxDepth, maxRoutes, Arrays.copyOf(table, tableSize));
+    }
+
+    /** {@link AllRoutesCacheEntry.Builder#sharedPrefix} over two stored routes (length byte first). */
+    private int sharedPrefix(int previous, int route, int length) {
+        if (previous < 0) {
+            return 0;
+        }
+        int limit = Math.min(buffer.get(previous) & 0xFF, length) - 1;
+        int shared = 0;
+        while (shared < limit && buffer.get(previous + 1 + shared) == buffer.get(route + 1 + shared)) {
+            shared++;
+        }
+        return shared;
+    }
+
+    /** Bytes of the entry starting at {@code offset}. */
+    private int recordLength(int offset) {
+        int count = buffer.getInt(offset + 8);
+        int position = offset + 12;
+        for (int r = 0; r < count; r++) {
+            position += 1 + (buffer.get(position) & 0xFF);
+        }
+        return position - offset;
+    }
+
+    /**
+     * Write {@code previous} updated with {@code recent} to {@code file}, keeping only keys that
+     * pass {@code retain}. Entries taken from {@code previous} are copied as bytes: the new
+     * dictionary starts with the previous one, so their country ids stay valid.
+     *
+     * @return the number of entries written
+     */
+    static int write(Path file, RouteCacheSnapshot previous, Map<String, AllRoutesCacheEntry> recent,
+                     Predicate<String> retain) throws IOException {
+        TreeMap<byte[], Object> sources = new TreeMap<>(Arrays::compareUnsigned);
+        for (int slot = 0; slot < previous.entryCount; slot++) {
+            byte[] key = previous.key(slot);
+            if (retain.test(new String(key, StandardCharsets.UTF_8))) {
+                sources.put(key, slot);
+            }
+        }
+        recent.forEach((key, entry) -> {
+            if (retain.test(key)) {
+                sources.put(key.getBytes(StandardCharsets.UTF_8), entry);
+            }
+        });
+
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String country : previous.countries) {
+            ids.put(country, ids.size());
+        }
+
+        int[] dataOffsets = new int[sources.size()];
+        int indexOffset;
+        int keysOffset;
+        int dictionaryOffset;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(new byte[HEADER_BYTES]);
+
+            int i = 0;
+            for (Object source : sources.values()) {
+                dataOffsets[i++] = offset(out);
+                if (source instanceof Integer slot) {
+                    int offset = previous.dataOffset(slot);
+                    byte[] record = new byte[previous.recordLength(offset)];
+                    previous.buffer.get(offset, record);
+                    out.write(record);
+                } else {
+                    encode((AllRoutesCacheEntry) source, ids, out);
+                }
+            }
+
+            indexOffset = offset(out);
+            int keyOffset = 0;
+            i = 0;
+            for (byte[] key : sources.keySet()) {
+                out.writeInt(keyOffset);
+                out.writeShort(key.length);
+                out.writeInt(dataOffsets[i++]);
+                keyOffset += key.length;
+            }
+
+            keysOffset = offset(out);
+            for (byte[] key : sources.keySet()) {
+                out.write(key);
+            }
+
+            dictionaryOffset = offset(out);
+            out.writeShort(ids.size());
+            for (String country : ids.keySet()) {
+                byte[] code = country.getBytes(StandardCharsets.US_ASCII);
+                out.writeByte(code.length);
+                out.write(code);
+            }
+            offset(out);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putInt(VERSION).putInt(sources.size())
+                .putInt(indexOffset).putInt(keysOffset).putInt(dictionaryOffset)
+                .flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        return sources.size();
+    }
+
+    /**
+     * Bytes written so far, as an offset. {@link DataOutputStream#size} stops counting at
+     * {@code Integer.MAX_VALUE}, so reaching it means the offsets no longer fit.
+     */
+    static int offset(DataOutputStream out) throws IOException {
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("All-routes cache file reached 2 GiB, past the int offsets of the format");
+        }
+        return out.size();
+    }
+
+    private static void encode(AllRoutesCacheEntry entry, Map<String, Integer> ids, DataOutputStream out)
+            throws IOException {
+        // Entry-local ids to file ids, resolved once per country rather than once per hop
+        String[] table = entry.countries();
+        int[] global = new int[table.length];
+        for (int local = 0; local < table.length; local++) {
+            Integer id = ids.get(table[local]);
+            if (id == null) {
+                if (ids.size() == MAX_COUNTRIES) {
+                    throw new IOException("More than " + MAX_COUNTRIES + " countries for one-byte ids");
+                }
+                id = ids.size();
+                ids.put(table[local], id);
+            }
+            global[local] = id;
+        }
+
+        out.writeInt(entry.getMaxDepth());
+        out.writeInt(entry.getMaxRoutes());
+        out.writeInt(entry.routeCount());
+        AllRoutesCacheEntry.Cursor cursor = entry.cursor();
+        while (cursor.next()) {
+            if (cursor.length() > 255) {
+                throw new IOException("Route of " + cursor.length() + " countries does not fit a length byte");
+            }
+            out.writeByte(cursor.length());
+            for (int i = 0; i < cursor.length(); i++) {
+                out.writeByte(global[cursor.id(i)]);
+            }
+        }
+    }
+
+    private static ByteBuffer emptyFile() {
+        return ByteBuffer.allocate(HEADER_BYTES + 2)
+                .putInt(MAGIC).putInt(VERSION).putInt(0)
+                .putInt(HEADER_BYTES).putInt(HEADER_BYTES).putInt(HEADER_BYTES)
+                .putShort((short) 0)
+                .flip();
+    }
+}
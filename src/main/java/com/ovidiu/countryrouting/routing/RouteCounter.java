@@ -0,0 +1,181 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts simple routes per length without building any of them.
+ * <p>
+ * Same search as {@link BitsetRouteEnumerator} (bitmask visited set, explicit cursor stack,
+ * distance-to-target pruning), but a route that reaches the destination only bumps
+ * {@code counts[hops]}. Counts are {@code long}s, so deep queries can report totals far
+ * beyond what the enumerating API could ever return. Large searches are split on the first
+ * few DFS levels and the subtree counts summed on a fork/join pool; each task adds its work
+ * counters to a {@link SharedSearchStats} once it finishes.
+ */
+public final class RouteCounter {
+
+    private static final int MAX_SPLIT_DEPTH = 3;
+
+    private final CompiledGraph graph;
+    private final int destination;
+    private final int maxHops;
+    private final int[] toTarget;
+    private final SharedSearchStats stats;
+
+    private RouteCounter(CompiledGraph graph, int destination, int maxHops, SharedSearchStats stats) {
+        this.graph = graph;
+        this.destination = destination;
+        this.maxHops = maxHops;
+        this.toTarget = BreadthFirstSearch.distancesTo(graph, destination);
+        this.stats = stats;
+    }
+
+    /**
+     * Number of simple routes from {@code origin} to {@code destination}, indexed by their
+     * hop count ({@code 0..maxHops}).
+     */
+    public static long[] count(CompiledGraph graph, int origin, int destination, int maxHops, boolean parallel) {
+        return count(graph, origin, destination, maxHops, parallel, new SharedSearchStats());
+    }
+
+    /** {@link #count(CompiledGraph, int, int, int, boolean)}, adding its work to {@code stats}. */
+    public static long[] count(CompiledGraph graph, int origin, int destination, int maxHops, boolean parallel,
+                               SharedSearchStats stats) {
+        if (maxHops < 0) {
+            return new long[0];
+        }
+
+        long[] counts = new long[maxHops + 1];
+        if (origin == destination) {
+            counts[0] = 1;
+            return counts;
+        }
+        if (!graph.sameComponent(origin, destination)) {
+            return counts;
+        }
+
+        RouteCounter counter = new RouteCounter(graph, destination, maxHops, stats);
+        if (!counter.canReach(origin, 0)) {
+            return counts;
+        }
+
+        int[] prefix = {origin};
+        return parallel
+                ? ParallelRouteEnumerator.sharedPool().invoke(counter.new CountTask(prefix))
+                : counter.countFrom(prefix);
+    }
+
+    /** Sequential DFS below {@code prefix} (origin first, destination not on it). */
+    private long[] countFrom(int[] prefix) {
+        long[] counts = new long[maxHops + 1];
+        long[] visited = new long[(graph.size() + 63) >>> 6];
+        int[] path = new int[graph.size()];
+        int[] cursor = new int[graph.size()];
+
+        for (int i = 0; i < prefix.length; i++) {
+            path[i] = prefix[i];
+            visited[prefix[i] >>> 6] |= 1L << prefix[i];
+        }
+
+        int base = prefix.length - 1;
+        int depth = base;
+        cursor[depth] = graph.edgeStart(path[depth]);
+        long expanded = 1;
+        int deepest = base;
+
+        while (depth >= base) {
+            int current = path[depth];
+
+            if (depth < maxHops && cursor[depth] < graph.edgeEnd(current)) {
+                int neighbor = graph.neighborAt(cursor[depth]++);
+
+                if ((visited[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                    continue;
+                }
+                if (neighbor == destination) {
+                    counts[depth + 1]++;
+                    continue;
+                }
+                if (!canReach(neighbor, depth + 1)) {
+                    continue;
+                }
+
+                depth++;
+                path[depth] = neighbor;
+                cursor[depth] = graph.edgeStart(neighbor);
+                visited[neighbor >>> 6] |= 1L << neighbor;
+                expanded++;
+                if (depth > deepest) deepest = depth;
+            } else {
+                visited[current >>> 6] &= ~(1L << current);
+                depth--;
+            }
+        }
+
+        stats.add(expanded, deepest);
+        return counts;
+    }
+
+    private boolean canReach(int node, int depth) {
+        int remaining = toTarget[node];
+        return remaining >= 0 && depth + remaining <= maxHops;
+    }
+
+    /** Counts below a prefix, forking one subtask per viable child on the first levels. */
+    private final class CountTask extends RecursiveTask<long[]> {
+
+        private final int[] prefix;
+
+        CountTask(int[] prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected long[] compute() {
+            int depth = prefix.length - 1;
+            if (depth >= MAX_SPLIT_DEPTH || depth >= maxHops - 1) {
+                return countFrom(prefix);
+            }
+
+            stats.add(1, depth);
+            long[] counts = new long[maxHops + 1];
+            List<CountTask> children = new ArrayList<>();
+            int current = prefix[depth];
+
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (contains(neighbor)) continue;
+
+                if (neighbor == destination) {
+                    counts[depth + 1]++;
+                } else if (canReach(neighbor, depth + 1)) {
+                    int[] child = Arrays.copyOf(prefix, depth + 2);
+                    child[depth + 1] = neighbor;
+                    children.add(new CountTask(child));
+                }
+            }
+
+            for (CountTask child : ForkJoinTask.invokeAll(children)) {
+                long[] sub = child.join();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += sub[i];
+                }
+            }
+            return counts;
+        }
+
+        private boolean contains(int node) {
+            for (int visitedNode : prefix) {
+                if (visitedNode == node) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -3,38 +3,73 @@ package com.ovidiu.countryrouting.routing;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import com.ovidiu.countryrouting.graph.CompiledGraph;
 import com.ovidiu.countryrouting.graph.GraphBuilder;
-import lombok.NoArgsConstructor;
+import com.ovidiu.countryrouting.graph.GraphReloadedEvent;
+import com.ovidiu.countryrouting.graph.ShortestPathTable;
+import com.ovidiu.countryrouting.jfr.RouteCacheEvent;
+import com.ovidiu.countryrouting.jfr.RouteSearchEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-@NoArgsConstructor
 public class RouteFinder {
 
     private GraphBuilder graphBuilder;
     private CountryCodeResolver resolver;
 
-    private final Map<String, List<String>> shortestRouteCache = new ConcurrentHashMap<>();
+    @Value("${routing.shortest-path.engine:TABLE}")
+    private ShortestPathEngine shortestPathEngine = ShortestPathEngine.TABLE;
 
-    private final Cache<String, AllRoutesCacheEntry> allRoutesCache =
-            Caffeine.newBuilder()
-                    .maximumSize(5000)
-                    .build();
+    @Value("${routing.all-routes.parallel-threshold:200000}")
+    private double parallelThreshold = 200_000;
+
+    private final ShortestPathTrees shortestPathTrees = new ShortestPathTrees(1024);
+
+    private static final DataSize DEFAULT_CACHE_BUDGET = DataSize.ofMegabytes(64);
+
+    private final Cache<String, AllRoutesCacheEntry> allRoutesCache;
 
     private final AllRoutesCachePersistence persistence = new AllRoutesCachePersistence();
 
-    @Autowired
+    /** Limits of one all-routes search; a search answers every request within its limits. */
+    private record Limits(int maxDepth, int maxRoutes) {
+        boolean covers(Limits requested) {
+            return requested.maxDepth <= maxDepth && requested.maxRoutes <= maxRoutes;
+        }
+    }
+
+    /** All-routes searches running now, per cache key (resolved pair and graph version). */
+    private final SingleFlight<String, Limits, AllRoutesCacheEntry> allRoutesFlights =
+            new SingleFlight<>(Limits::covers);
+
     public RouteFinder(GraphBuilder graphBuilder, CountryCodeResolver resolver) {
+        this(graphBuilder, resolver, DEFAULT_CACHE_BUDGET);
+    }
+
+    /**
+     * @param cacheBudget heap the all-routes cache may hold, as estimated by
+     *                    {@link AllRoutesCacheEntry#weight}
+     */
+    @Autowired
+    public RouteFinder(GraphBuilder graphBuilder,
+                       CountryCodeResolver resolver,
+                       @Value("${routing.all-routes.cache-budget:64MB}") DataSize cacheBudget) {
         this.graphBuilder = graphBuilder;
         this.resolver = resolver;
+        this.allRoutesCache = Caffeine.newBuilder()
+                .maximumWeight(cacheBudget.toBytes())
+                .weigher((String key, AllRoutesCacheEntry entry) -> 2 * key.length() + entry.weight())
+                .build();
         try {
             resolver.extractData();
         } catch (IOException e) {
@@ -42,39 +77,56 @@ public class RouteFinder {
         }
     }
 
+    /**
+     * Map the persisted cache; its entries are decoded into {@link #allRoutesCache} as lookups
+     * miss. Only entries computed on the current dataset are kept when it is next compacted.
+     */
     @PostConstruct
     public void loadCache() {
-        Map<String, AllRoutesCacheEntry> loaded = persistence.load();
-        allRoutesCache.putAll(loaded);
+        String suffix = versionSuffix(graphBuilder.getGraph());
+
+        persistence.retain(key -> key.endsWith(suffix));
+        persistence.load();
     }
 
+    /**
+     * Cache keys carry the graph version, so a reload can never serve stale routes.
+     * Entries of older snapshots are dropped here, one key at a time, while traffic
+     * keeps using the new version's keys.
+     */
+    @EventListener
+    public void onGraphReloaded(GraphReloadedEvent event) {
+        String suffix = versionSuffix(event.current());
+
+        shortestPathTrees.retain(event.current());
+        allRoutesCache.asMap().keySet().removeIf(key -> !key.endsWith(suffix));
+        persistence.retain(key -> key.endsWith(suffix));
+    }
+
+    /** Write what is still queued and compact the log. */
     @PreDestroy
     public void saveCache() {
-        persistence.save(allRoutesCache.asMap());
+        persistence.close();
     }
 
     // ------------------------------------------------------------
     // STRICT SHORTEST ROUTE
     // ------------------------------------------------------------
     public List<String> findShortestRoute(String origin, String destination) {
-        String key = origin + "->" + destination;
-
-        return shortestRouteCache.computeIfAbsent(key, k -> {
-            Map<String, List<String>> graph = this.graphBuilder.buildGraph();
+        CompiledGraph graph = this.graphBuilder.getGraph();
 
-            if (!graph.containsKey(origin) || !graph.containsKey(destination)) {
-                throw new IllegalArgumentException("Unknown country code");
-            }
+        if (!graph.contains(origin) || !graph.contains(destination)) {
+            throw new IllegalArgumentException("Unknown country code");
+        }
 
-            return bfs(origin, destination, graph);
-        });
+        return shortestRoute(graph.id(origin), graph.id(destination), graph);
     }
 
     // ------------------------------------------------------------
     // FUZZY SHORTEST ROUTE
     // ------------------------------------------------------------
     public List<String> findShortestRouteFuzzy(String origin, String destination) {
-        Map<String, List<String>> graph = this.graphBuilder.buildGraph();
+        CompiledGraph graph = this.graphBuilder.getGraph();
 
         String resolvedOrigin = resolver.resolve(origin);
         String resolvedDestination = resolver.resolve(destination);
@@ -83,11 +135,74 @@ public class RouteFinder {
             throw new IllegalArgumentException("Unknown or invalid country name/code");
         }
 
-        if (!graph.containsKey(resolvedOrigin) || !graph.containsKey(resolvedDestination)) {
+        if (!graph.contains(resolvedOrigin) || !graph.contains(resolvedDestination)) {
             throw new IllegalArgumentException("Resolved country not found in graph");
         }
 
-        return bfs(resolvedOrigin, resolvedDestination, graph);
+        int from = graph.id(resolvedOrigin);
+        int to = graph.id(resolvedDestination);
+
+        return shortestRoute(from, to, graph);
+    }
+
+    // ------------------------------------------------------------
+    // BATCH FUZZY SHORTEST ROUTES
+    // ------------------------------------------------------------
+
+    /**
+     * Answer many fuzzy pairs on one snapshot. Names are resolved once per distinct input,
+     * pairs are grouped by origin so each origin needs a single single-source search (a cached
+     * tree with the TREE engine), and origins are processed in parallel. Results come back in
+     * input order.
+     */
+    public List<BatchRouteResult> findShortestRoutesFuzzy(List<RoutePair> pairs) {
+        CompiledGraph graph = this.graphBuilder.getGraph();
+
+        List<String> inputs = new ArrayList<>();
+        for (RoutePair pair : pairs) {
+            if (pair != null) {
+                inputs.add(pair.origin());
+                inputs.add(pair.destination());
+            }
+        }
+        Map<String, String> resolved = resolver.resolveAll(inputs);
+
+        BatchRouteResult[] results = new BatchRouteResult[pairs.size()];
+        Map<Integer, List<Integer>> byOrigin = new HashMap<>();
+
+        for (int i = 0; i < pairs.size(); i++) {
+            RoutePair pair = pairs.get(i);
+            String resolvedOrigin = pair == null || pair.origin() == null ? null : resolved.get(pair.origin());
+            String resolvedDestination = pair == null || pair.destination() == null ? null : resolved.get(pair.destination());
+
+            if (resolvedOrigin == null || resolvedDestination == null) {
+                results[i] = BatchRouteResult.error(pair, "Unknown or invalid country name/code");
+            } else if (!graph.contains(resolvedOrigin) || !graph.contains(resolvedDestination)) {
+                results[i] = BatchRouteResult.error(pair, "Resolved country not found in graph");
+            } else {
+                byOrigin.computeIfAbsent(graph.id(resolvedOrigin), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        byOrigin.entrySet().parallelStream().forEach(group -> {
+            int origin = group.getKey();
+            ShortestPathTable table = shortestPathEngine == ShortestPathEngine.TABLE ? graph.shortestPaths() : null;
+            int[] tree = table != null ? null : sourceTree(graph, origin);
+
+            for (int i : group.getValue()) {
+                RoutePair pair = pairs.get(i);
+                int destination = graph.id(resolved.get(pair.destination()));
+                int[] path = table != null
+                        ? table.route(origin, destination)
+                        : BreadthFirstSearch.walkTree(tree, destination);
+
+                results[i] = path == null
+                        ? BatchRouteResult.error(pair, "No land route found")
+                        : BatchRouteResult.route(pair, graph.toCodes(path, path.length));
+            }
+        });
+
+        return Arrays.asList(results);
     }
 
     // ------------------------------------------------------------
@@ -105,182 +220,216 @@ public class RouteFinder {
             throw new IllegalArgumentException("Unknown or invalid country name/code");
         }
 
-        String keyForward = resolvedOrigin + "->" + resolvedDestination;
-        String keyReverse = resolvedDestination + "->" + resolvedOrigin;
+        // Every lookup and computation below runs on this one snapshot
+        CompiledGraph graph = this.graphBuilder.getGraph();
 
-        AllRoutesCacheEntry cachedForward = allRoutesCache.getIfPresent(keyForward);
-        // 1) Forward cache hit
-        if (isCachedForward(maxDepth, maxRoutes, cachedForward))
-            return filterRoutes(cachedForward.getRoutes(), maxDepth, maxRoutes);
+        String keyForward = routeKey(resolvedOrigin, resolvedDestination, graph);
+        String keyReverse = routeKey(resolvedDestination, resolvedOrigin, graph);
 
-        AllRoutesCacheEntry cachedReverse = allRoutesCache.getIfPresent(keyReverse);
-        // 2) Reverse cache hit → reverse routes
-        List<List<String>> reversed = getCachedReversed(maxDepth, maxRoutes, cachedReverse, keyForward);
-        if (reversed != null) return reversed;
+        List<List<String>> cached = getCachedRoutes(keyForward, keyReverse, maxDepth, maxRoutes);
+        if (cached != null) return cached;
 
         // 3) No usable cache → compute
-        Map<String, List<String>> graph = this.graphBuilder.buildGraph();
-
-        if (!graph.containsKey(resolvedOrigin) || !graph.containsKey(resolvedDestination)) {
+        if (!graph.contains(resolvedOrigin) || !graph.contains(resolvedDestination)) {
             throw new IllegalArgumentException("Resolved country not found in graph");
         }
 
-        List<List<String>> allRoutes =
-                computeAllRoutes(resolvedOrigin, resolvedDestination, maxDepth, maxRoutes, graph);
+        int from = graph.id(resolvedOrigin);
+        int to = graph.id(resolvedDestination);
 
-        AllRoutesCacheEntry newEntry = new AllRoutesCacheEntry(maxDepth, maxRoutes, allRoutes);
-        allRoutesCache.put(keyForward, newEntry);
-        persistence.save(allRoutesCache.asMap());
+        // Concurrent misses of the pair share one search; the leader caches it before releasing them.
+        // A flight that ended between our lookup and run() has cached its entry already, so look again.
+        SingleFlight.Result<AllRoutesCacheEntry> result =
+                allRoutesFlights.run(keyForward, new Limits(maxDepth, maxRoutes), () -> {
+                    AllRoutesCacheEntry current = cachedEntry(keyForward);
+                    if (isCachedForward(maxDepth, maxRoutes, current)) {
+                        return current;
+                    }
 
-        return allRoutes;
-    }
+                    AllRoutesCacheEntry newEntry = computeAllRoutes(from, to, maxDepth, maxRoutes, graph);
+                    allRoutesCache.put(keyForward, newEntry);
+                    persistence.append(keyForward, newEntry);
+                    return newEntry;
+                });
 
-    private List<List<String>> getCachedReversed(int maxDepth, int maxRoutes, AllRoutesCacheEntry cachedReverse, String keyForward) {
-        if (cachedReverse != null &&
-                maxDepth <= cachedReverse.getMaxDepth() &&
-                maxRoutes <= cachedReverse.getMaxRoutes()) {
-
-            List<List<String>> reversed =
-                    cachedReverse.getRoutes().stream()
-                            .map(route -> {
-                                List<String> copy = new ArrayList<>(route);
-                                Collections.reverse(copy);
-                                return copy;
-                            })
-                            .filter(route -> route.size() - 1 <= maxDepth)
-                            .limit(maxRoutes)
-                            .toList();
-
-            // Store reversed result under forward key
-            allRoutesCache.put(keyForward,
-                    new AllRoutesCacheEntry(
-                            cachedReverse.getMaxDepth(),
-                            cachedReverse.getMaxRoutes(),
-                            reversed
-                    ));
-
-            return reversed;
+        if (result.shared()) {
+            RouteCacheEvent.emit(RouteCacheEvent.ALL_ROUTES, keyForward, RouteCacheEvent.SHARED);
         }
-        return null;
-    }
-
-    private boolean isCachedForward(int maxDepth, int maxRoutes, AllRoutesCacheEntry cachedForward) {
-        return cachedForward != null &&
-                maxDepth <= cachedForward.getMaxDepth() &&
-                maxRoutes <= cachedForward.getMaxRoutes();
+        return result.value().routes(maxDepth, maxRoutes);
     }
 
-    private List<List<String>> filterRoutes(List<List<String>> routes, int maxDepth, int maxRoutes) {
-        return routes.stream()
-                .filter(route -> route.size() - 1 <= maxDepth)
-                .limit(maxRoutes)
-                .toList();
-    }
+    /**
+     * Streaming variant of {@link #findAllRoutesFuzzy}: names are resolved now, cache hits are
+     * replayed, and a miss runs a sequential bitset DFS that hands routes out as it finds them.
+     * The result is cached only if the consumer took every route, so an abandoned stream never
+     * leaves a truncated entry behind. When a search covering the request is already running for
+     * the pair, the stream waits for it and replays its routes instead.
+     */
+    public RouteStream streamAllRoutesFuzzy(String origin,
+                                            String destination,
+                                            int maxDepth,
+                                            int maxRoutes) {
 
-    private List<List<String>> computeAllRoutes(String origin,
-                                                String destination,
-                                                int maxDepth,
-                                                int maxRoutes,
-                                                Map<String, List<String>> graph) {
+        String resolvedOrigin = resolver.resolve(origin);
+        String resolvedDestination = resolver.resolve(destination);
 
-        List<List<String>> result = new ArrayList<>();
-        Deque<String> path = new ArrayDeque<>();
-        Set<String> visited = new HashSet<>();
+        if (resolvedOrigin == null || resolvedDestination == null) {
+            throw new IllegalArgumentException("Unknown or invalid country name/code");
+        }
 
-        path.addLast(origin);
-        visited.add(origin);
+        CompiledGraph graph = this.graphBuilder.getGraph();
 
-        dfsAll(origin, destination, maxDepth, maxRoutes, graph, path, visited, result);
+        String keyForward = routeKey(resolvedOrigin, resolvedDestination, graph);
+        String keyReverse = routeKey(resolvedDestination, resolvedOrigin, graph);
 
-        return result;
-    }
+        List<List<String>> cached = getCachedRoutes(keyForward, keyReverse, maxDepth, maxRoutes);
+        if (cached != null) return RouteStream.of(cached);
 
-    private void dfsAll(String current,
-                        String destination,
-                        int maxDepth,
-                        int maxRoutes,
-                        Map<String, List<String>> graph,
-                        Deque<String> path,
-                        Set<String> visited,
-                        List<List<String>> result) {
-
-        if (result.size() >= maxRoutes) {
-            return;
+        if (!graph.contains(resolvedOrigin) || !graph.contains(resolvedDestination)) {
+            throw new IllegalArgumentException("Resolved country not found in graph");
         }
 
-        if (current.equals(destination)) {
-            result.add(new ArrayList<>(path));
-            return;
-        }
+        int from = graph.id(resolvedOrigin);
+        int to = graph.id(resolvedDestination);
 
-        if (path.size() - 1 >= maxDepth) {
-            return;
-        }
+        return consumer -> {
+            AllRoutesCacheEntry running = allRoutesFlights.join(keyForward, new Limits(maxDepth, maxRoutes));
+            if (running != null) {
+                RouteCacheEvent.emit(RouteCacheEvent.ALL_ROUTES, keyForward, RouteCacheEvent.SHARED);
+                return RouteStream.of(running.routes(maxDepth, maxRoutes)).forEachRoute(consumer);
+            }
 
-        for (String neighbor : graph.getOrDefault(current, List.of())) {
-            if (!visited.contains(neighbor)) {
-                visited.add(neighbor);
-                path.addLast(neighbor);
+            RouteSearchEvent event = RouteSearchEvent.start("BITSET_STREAM", resolvedOrigin, resolvedDestination, maxDepth);
+            BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(graph);
+            List<int[]> routes = new ArrayList<>();
+            boolean[] abandoned = {false};
+
+            enumerator.enumerate(from, to, maxDepth, maxRoutes, (path, length) -> {
+                routes.add(Arrays.copyOf(path, length));
+                abandoned[0] = !consumer.test(graph.toCodes(path, length));
+                return !abandoned[0];
+            });
+            event.finish(enumerator.nodesExpanded(), enumerator.depthReached(), routes.size());
+
+            if (!abandoned[0]) {
+                AllRoutesCacheEntry entry = AllRoutesCacheEntry.of(maxDepth, maxRoutes, routes, graph);
+                allRoutesCache.put(keyForward, entry);
+                persistence.append(keyForward, entry);
+            }
+            return routes.size();
+        };
+    }
 
-                dfsAll(neighbor, destination, maxDepth, maxRoutes, graph, path, visited, result);
+    private List<List<String>> getCachedRoutes(String keyForward, String keyReverse, int maxDepth, int maxRoutes) {
+        AllRoutesCacheEntry cachedForward = cachedEntry(keyForward);
+        // 1) Forward cache hit
+        if (isCachedForward(maxDepth, maxRoutes, cachedForward)) {
+            RouteCacheEvent.emit(RouteCacheEvent.ALL_ROUTES, keyForward, RouteCacheEvent.HIT);
+            return cachedForward.routes(maxDepth, maxRoutes);
+        }
 
-                path.removeLast();
-                visited.remove(neighbor);
+        AllRoutesCacheEntry cachedReverse = cachedEntry(keyReverse);
+        // 2) Reverse cache hit → reverse routes
+        List<List<String>> reversed = getCachedReversed(maxDepth, maxRoutes, cachedReverse, keyForward);
+        RouteCacheEvent.emit(RouteCacheEvent.ALL_ROUTES, keyForward,
+                reversed == null ? RouteCacheEvent.MISS : RouteCacheEvent.REVERSE_HIT);
+        return reversed;
+    }
 
-                if (result.size() >= maxRoutes) {
-                    return;
-                }
+    /** From memory, or decoded from the persisted cache and kept in memory. */
+    private AllRoutesCacheEntry cachedEntry(String key) {
+        AllRoutesCacheEntry entry = allRoutesCache.getIfPresent(key);
+        if (entry == null) {
+            entry = persistence.lookup(key);
+            if (entry != null) {
+                allRoutesCache.put(key, entry);
             }
         }
+        return entry;
     }
 
-    private List<String> bfs(String origin, String destination, Map<String, List<String>> graph) {
-        if (origin.equals(destination)) {
-            return List.of(origin);
-        }
-
-        Queue<String> queue = new LinkedList<>();
-        Map<String, String> parent = new HashMap<>();
-        Set<String> visited = new HashSet<>();
+    private static String routeKey(String origin, String destination, CompiledGraph graph) {
+        return origin + "->" + destination + versionSuffix(graph);
+    }
 
-        queue.add(origin);
-        visited.add(origin);
+    private static String versionSuffix(CompiledGraph graph) {
+        return "@" + graph.versionTag();
+    }
 
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
+    /** Reverse cache hit: the same trie, read backwards, is cached under the forward key. */
+    private List<List<String>> getCachedReversed(int maxDepth, int maxRoutes, AllRoutesCacheEntry cachedReverse, String keyForward) {
+        if (cachedReverse != null &&
+                maxDepth <= cachedReverse.getMaxDepth() &&
+                maxRoutes <= cachedReverse.getMaxRoutes()) {
 
-            for (String neighbor : graph.getOrDefault(current, List.of())) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    parent.put(neighbor, current);
-                    queue.add(neighbor);
+            AllRoutesCacheEntry forward = cachedReverse.reversed();
+            allRoutesCache.put(keyForward, forward);
 
-                    if (neighbor.equals(destination)) {
-                        return reconstructPath(parent, origin, destination);
-                    }
-                }
-            }
+            return forward.routes(maxDepth, maxRoutes);
         }
-
         return null;
     }
 
-    private List<String> reconstructPath(Map<String, String> parent,
-                                         String origin,
-                                         String destination) {
+    private boolean isCachedForward(int maxDepth, int maxRoutes, AllRoutesCacheEntry cachedForward) {
+        return cachedForward != null &&
+                maxDepth <= cachedForward.getMaxDepth() &&
+                maxRoutes <= cachedForward.getMaxRoutes();
+    }
 
-        List<String> path = new LinkedList<>();
-        String step = destination;
+    private AllRoutesCacheEntry computeAllRoutes(int origin,
+                                                 int destination,
+                                                 int maxDepth,
+                                                 int maxRoutes,
+                                                 CompiledGraph graph) {
+        RouteSearchEvent event = RouteSearchEvent.start("BITSET", graph.code(origin), graph.code(destination), maxDepth);
 
-        while (step != null) {
-            path.addFirst(step);
-            step = parent.get(step);
-        }
+        SharedSearchStats stats = new SharedSearchStats();
+        List<int[]> routes = ParallelRouteEnumerator.findRoutes(
+                graph, origin, destination, maxDepth, maxRoutes, parallelThreshold, stats);
+
+        event.finish(stats.getNodesExpanded(), stats.getDepthReached(), routes.size());
 
-        if (!path.getFirst().equals(origin)) {
-            return null;
+        return AllRoutesCacheEntry.of(maxDepth, maxRoutes, routes, graph);
+    }
+
+    /**
+     * Shortest route with the configured engine. TABLE walks the precomputed table in
+     * O(path length) and falls back to TREE when the graph is too large to have one.
+     */
+    private List<String> shortestRoute(int origin, int destination, CompiledGraph graph) {
+        RouteSearchEvent event = RouteSearchEvent.start(
+                shortestPathEngine.name(), graph.code(origin), graph.code(destination), -1);
+        SearchStats stats = new SearchStats();
+
+        int[] path = switch (shortestPathEngine) {
+            case TABLE -> graph.shortestPaths() != null
+                    ? graph.shortestPaths().route(origin, destination)
+                    : shortestPathTrees.route(graph, origin, destination);
+            case TREE -> shortestPathTrees.route(graph, origin, destination);
+            case BFS -> BreadthFirstSearch.route(graph, origin, destination, stats);
+            case BIDIRECTIONAL -> BidirectionalBfs.route(graph, origin, destination, stats);
+        };
+
+        boolean searched = shortestPathEngine == ShortestPathEngine.BFS
+                || shortestPathEngine == ShortestPathEngine.BIDIRECTIONAL;
+        event.finish(searched ? stats.getNodesExpanded() : -1,
+                searched ? stats.getDepthReached() : -1,
+                path == null ? 0 : 1);
+
+        return path == null ? null : graph.toCodes(path, path.length);
+    }
+
+    /** Parent tree of {@code origin}: cached with TREE (when the graph fits), computed otherwise. */
+    private int[] sourceTree(CompiledGraph graph, int origin) {
+        if (shortestPathEngine != ShortestPathEngine.TREE || graph.size() > ShortestPathTable.MAX_NODES) {
+            return BreadthFirstSearch.tree(graph, origin);
         }
 
-        return path;
+        short[] tree = shortestPathTrees.tree(graph, origin);
+        int[] parent = new int[tree.length];
+        for (int i = 0; i < tree.length; i++) {
+            parent[i] = tree[i];
+        }
+        return parent;
     }
 }
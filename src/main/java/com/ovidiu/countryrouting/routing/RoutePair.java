@@ -0,0 +1,5 @@
+package com.ovidiu.countryrouting.routing;
+
+/** One origin/destination query of a batch, as country names or codes. */
+public record RoutePair(String origin, String destination) {
+}
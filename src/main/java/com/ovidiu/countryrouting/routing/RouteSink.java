@@ -0,0 +1,12 @@
+package com.ovidiu.countryrouting.routing;
+
+/**
+ * Receives routes from the int-id enumeration engines as they are found.
+ * The {@code path} buffer is reused by the engine; copy what you keep.
+ */
+@FunctionalInterface
+public interface RouteSink {
+
+    /** @return {@code false} to stop the search */
+    boolean accept(int[] path, int length);
+}
@@ -0,0 +1,34 @@
+package com.ovidiu.countryrouting.routing;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A validated all-routes query whose search has not run yet.
+ * <p>
+ * {@link #forEachRoute} runs the search on the calling thread and hands every route to the
+ * consumer the moment it is found, so a slow consumer slows the search down instead of
+ * letting results pile up in memory.
+ */
+@FunctionalInterface
+public interface RouteStream {
+
+    /**
+     * Run the search; it stops as soon as {@code consumer} returns {@code false}.
+     *
+     * @return number of routes handed to the consumer
+     */
+    int forEachRoute(Predicate<List<String>> consumer);
+
+    /** Stream over already computed routes, e.g. a cache hit. */
+    static RouteStream of(List<List<String>> routes) {
+        return consumer -> {
+            int delivered = 0;
+            for (List<String> route : routes) {
+                delivered++;
+                if (!consumer.test(route)) break;
+            }
+            return delivered;
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.ovidiu.countryrouting.routing;
+
+import lombok.Getter;
+
+/** Work counters filled in by a single search; not thread-safe. */
+@Getter
+public class SearchStats {
+
+    /** Nodes whose borders were scanned. */
+    private int nodesExpanded;
+
+    /** Deepest level (hops from the start node) that was expanded. */
+    private int depthReached;
+
+    void expanded(int depth) {
+        nodesExpanded++;
+        if (depth > depthReached) depthReached = depth;
+    }
+}
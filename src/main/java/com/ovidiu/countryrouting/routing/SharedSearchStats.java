@@ -0,0 +1,30 @@
+package com.ovidiu.countryrouting.routing;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Work counters of one search split over fork/join tasks: each task adds its own totals once it
+ * finishes, so the hot loops keep plain local counters. Thread-safe, unlike {@link SearchStats}.
+ */
+public class SharedSearchStats {
+
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAccumulator depthReached = new LongAccumulator(Math::max, 0);
+
+    /** Add a task's expanded nodes and the deepest level (hops from the origin) it expanded. */
+    void add(long nodes, int depth) {
+        nodesExpanded.add(nodes);
+        depthReached.accumulate(depth);
+    }
+
+    /** Nodes whose borders were scanned, summed over every task. */
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    /** Deepest level expanded by any task. */
+    public int getDepthReached() {
+        return (int) depthReached.get();
+    }
+}
@@ -0,0 +1,13 @@
+package com.ovidiu.countryrouting.routing;
+
+/** How {@link RouteFinder} answers shortest-route queries ({@code routing.shortest-path.engine}). */
+public enum ShortestPathEngine {
+    /** Walk the precomputed all-pairs table of the current graph snapshot. */
+    TABLE,
+    /** Walk a cached BFS tree of the origin (or, for reversible pairs, of the destination). */
+    TREE,
+    /** Run a BFS per query, uncached. */
+    BFS,
+    /** Run a bidirectional BFS per query, uncached. */
+    BIDIRECTIONAL
+}
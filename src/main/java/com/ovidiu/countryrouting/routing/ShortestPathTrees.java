@@ -0,0 +1,169 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.ShortestPathTable;
+import com.ovidiu.countryrouting.jfr.RouteCacheEvent;
+
+/**
+ * Bounded cache of BFS trees, one per origin and graph version.
+ * <p>
+ * A tree is the BFS parent of every node as a {@code short[]} ({@code -1} = unreachable), so
+ * one entry answers every destination from its origin, unreachable ones included. When the
+ * origin's tree is missing but the destination's is cached, the pair is
+ * {@link CompiledGraph#reversible reversible} and its shortest route is unique, the
+ * destination's route back is reversed instead of running a new BFS. Between pairs with
+ * several shortest routes that would return whichever one the destination's BFS found, so
+ * those always use the origin's tree: answers never depend on what happens to be cached.
+ * <p>
+ * Trees are computed outside the cache's locks; threads missing the same origin at once share
+ * one BFS ({@link SingleFlight}).
+ */
+public final class ShortestPathTrees {
+
+    private final Cache<String, short[]> trees;
+    private final SingleFlight<String, Void, short[]> flights = new SingleFlight<>();
+
+    public ShortestPathTrees(long maximumSize) {
+        this.trees = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /** Node ids of a shortest route (origin first), or {@code null} when unreachable. */
+    public int[] route(CompiledGraph graph, int origin, int destination) {
+        if (!graph.sameComponent(origin, destination)) {
+            return null;
+        }
+        if (graph.size() > ShortestPathTable.MAX_NODES) {
+            return BreadthFirstSearch.route(graph, origin, destination, new SearchStats());
+        }
+
+        String key = key(graph, origin);
+        short[] tree = trees.getIfPresent(key);
+        if (tree == null && graph.reversible(origin, destination)) {
+            short[] reverse = trees.getIfPresent(key(graph, destination));
+            if (reverse != null && uniqueRoute(graph, reverse, origin)) {
+                RouteCacheEvent.emit(RouteCacheEvent.SHORTEST_PATH_TREES, key, RouteCacheEvent.REVERSE_HIT);
+                return reversed(walk(reverse, origin));
+            }
+        }
+
+        RouteCacheEvent.emit(RouteCacheEvent.SHORTEST_PATH_TREES, key,
+                tree == null ? RouteCacheEvent.MISS : RouteCacheEvent.HIT);
+        if (tree == null) {
+            tree = compute(graph, origin, key);
+        }
+        return walk(tree, destination);
+    }
+
+    /** Cached tree of {@code origin}, computed on a miss; the graph must fit {@link ShortestPathTable#MAX_NODES}. */
+    public short[] tree(CompiledGraph graph, int origin) {
+        String key = key(graph, origin);
+        short[] tree = trees.getIfPresent(key);
+
+        RouteCacheEvent.emit(RouteCacheEvent.SHORTEST_PATH_TREES, key,
+                tree == null ? RouteCacheEvent.MISS : RouteCacheEvent.HIT);
+        return tree != null ? tree : compute(graph, origin, key);
+    }
+
+    private short[] compute(CompiledGraph graph, int origin, String key) {
+        SingleFlight.Result<short[]> result = flights.run(key, null, () -> {
+            // Another thread may have stored it between our miss and this flight
+            short[] cached = trees.getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            int[] parent = BreadthFirstSearch.tree(graph, origin);
+            short[] compact = new short[parent.length];
+            for (int i = 0; i < parent.length; i++) {
+                compact[i] = (short) parent[i];
+            }
+            trees.put(key, compact);
+            return compact;
+        });
+
+        if (result.shared()) {
+            RouteCacheEvent.emit(RouteCacheEvent.SHORTEST_PATH_TREES, key, RouteCacheEvent.SHARED);
+        }
+        return result.value();
+    }
+
+    /** Drop the trees of every snapshot except {@code current}. */
+    public void retain(CompiledGraph current) {
+        String suffix = "@" + current.versionTag();
+        trees.asMap().keySet().removeIf(key -> !key.endsWith(suffix));
+    }
+
+    public long size() {
+        trees.cleanUp();
+        return trees.estimatedSize();
+    }
+
+    /**
+     * Whether {@code walk(tree, node)} is the only shortest route from the tree's root: every
+     * node on it has exactly one predecessor one level closer to the root.
+     */
+    static boolean uniqueRoute(CompiledGraph graph, short[] tree, int node) {
+        if (tree[node] < 0) {
+            return true;
+        }
+
+        int depth = depth(tree, node);
+        for (int step = node; tree[step] != step; step = tree[step], depth--) {
+            int predecessors = 0;
+            for (int e = graph.inEdgeStart(step); e < graph.inEdgeEnd(step); e++) {
+                int candidate = graph.inNeighborAt(e);
+                if (tree[candidate] >= 0 && depth(tree, candidate) == depth - 1 && ++predecessors > 1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int depth(short[] tree, int node) {
+        int depth = 0;
+        for (int step = node; tree[step] != step; step = tree[step]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    static int[] walk(short[] parent, int destination) {
+        if (parent[destination] < 0) {
+            return null;
+        }
+
+        int hops = 0;
+        for (int step = destination; parent[step] != step; step = parent[step]) {
+            hops++;
+        }
+
+        int[] path = new int[hops + 1];
+        int step = destination;
+        for (int i = hops; i >= 0; i--) {
+            path[i] = step;
+            step = parent[step];
+        }
+        return path;
+    }
+
+    private static int[] reversed(int[] path) {
+        if (path == null) {
+            return null;
+        }
+        for (int i = 0, j = path.length - 1; i < j; i++, j--) {
+            int tmp = path[i];
+            path[i] = path[j];
+            path[j] = tmp;
+        }
+        return path;
+    }
+
+    private static String key(CompiledGraph graph, int origin) {
+        return graph.code(origin) + "@" + graph.versionTag();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ovidiu.countryrouting.routing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations of one key: the first caller computes on its own thread,
+ * callers arriving while it runs wait for its result instead of repeating the work. A running
+ * computation also serves callers whose parameters it {@code covers} (e.g. a search with a
+ * larger depth serves a smaller one); a caller it does not cover computes on its own and takes
+ * its place for later arrivals.
+ * <p>
+ * The map is only touched for O(1) updates, never while computing, so a long computation holds
+ * no lock that other keys could contend on. Nothing is kept once a computation completes: the
+ * caller stores results in its own cache inside {@code compute}, before waiters are released.
+ *
+ * @param <K> key, e.g. a resolved pair and graph version
+ * @param <P> parameters of one computation
+ * @param <V> result
+ */
+final class SingleFlight<K, P, V> {
+
+    /** A value, and whether it came from another caller's computation. */
+    record Result<V>(V value, boolean shared) {
+    }
+
+    private record Flight<P, V>(P params, CompletableFuture<V> result) {
+    }
+
+    /** {@code (running, requested)}: whether the running computation answers the request. */
+    private final BiPredicate<P, P> covers;
+    private final ConcurrentHashMap<K, Flight<P, V>> flights = new ConcurrentHashMap<>();
+
+    /** Every computation of a key answers every request for it. */
+    SingleFlight() {
+        this((running, requested) -> true);
+    }
+
+    SingleFlight(BiPredicate<P, P> covers) {
+        this.covers = covers;
+    }
+
+    /** Wait for a running computation that covers {@code params}, or run {@code compute}. */
+    Result<V> run(K key, P params, Supplier<V> compute) {
+        Flight<P, V> mine = new Flight<>(params, new CompletableFuture<>());
+        Flight<P, V> flight = flights.compute(key, (k, running) ->
+                running != null && covers.test(running.params(), params) ? running : mine);
+
+        if (flight != mine) {
+            return new Result<>(await(flight.result()), true);
+        }
+
+        try {
+            V value = compute.get();
+            mine.result().complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException | Error e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, mine);
+        }
+    }
+
+    /** Wait for a running computation that covers {@code params}; {@code null} when none runs. */
+    V join(K key, P params) {
+        Flight<P, V> running = flights.get(key);
+        return running != null && covers.test(running.params(), params) ? await(running.result()) : null;
+    }
+
+    /** Keys being computed. */
+    int size() {
+        return flights.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ovidiu.countryrouting.aop;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyCsvExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFlushWritesOneLinePerSeries() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("AllRoutesFinder.findAllRoutes", new String[]{"maxDepth"}, List.of("10"), 1_500_000);
+        recorder.record("AllRoutesFinder.countRoutes", new String[0], List.of(), 20_000);
+
+        Path file = dir.resolve("latency.csv");
+        LatencyCsvExporter exporter = new LatencyCsvExporter(recorder);
+        ReflectionTestUtils.setField(exporter, "csvFile", file.toString());
+        exporter.flush();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(LatencyCsvExporter.HEADER.trim(), lines.get(0));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith("AllRoutesFinder.countRoutes,,1,"));
+        assertTrue(lines.get(2).startsWith("AllRoutesFinder.findAllRoutes,maxDepth=10,1,"));
+        assertTrue(lines.get(2).endsWith(",1500.0"));
+    }
+
+    @Test
+    void testFlushSkipsUnchangedAndDisabledExports() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("AllRoutesFinder.countRoutes", new String[0], List.of(), 20_000);
+
+        Path file = dir.resolve("latency.csv");
+        LatencyCsvExporter exporter = new LatencyCsvExporter(recorder);
+        ReflectionTestUtils.setField(exporter, "csvFile", file.toString());
+        exporter.flush();
+        Files.delete(file);
+
+        exporter.flush();
+        assertFalse(Files.exists(file));
+
+        recorder.record("AllRoutesFinder.countRoutes", new String[0], List.of(), 20_000);
+        ReflectionTestUtils.setField(exporter, "csvFile", "");
+        exporter.flush();
+        assertFalse(Files.exists(file));
+    }
+}
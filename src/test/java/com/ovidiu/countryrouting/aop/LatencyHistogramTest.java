@@ -0,0 +1,90 @@
+package com.ovidiu.countryrouting.aop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.percentile(0.99));
+        assertEquals(0, snapshot.max());
+    }
+
+    @Test
+    void testBucketsCoverEveryValueWithinThreePercent() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = LatencyHistogram.bucket(value);
+
+            assertTrue(bucket >= 0 && bucket < LatencyHistogram.BUCKETS);
+            long highest = LatencyHistogram.highestValue(bucket);
+            assertTrue(highest >= value, value + " -> " + highest);
+            assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKETS, value + " -> " + highest);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(20, snapshot.count());
+        assertEquals(210, snapshot.sum());
+        assertEquals(10, snapshot.percentile(0.5));
+        assertEquals(19, snapshot.percentile(0.95));
+        assertEquals(20, snapshot.percentile(1.0));
+        assertEquals(20, snapshot.max());
+    }
+
+    @Test
+    void testPercentilesOfMillisecondLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1_000_000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(500_000_000, snapshot.percentile(0.5), 500_000_000 * 0.035);
+        assertEquals(990_000_000, snapshot.percentile(0.99), 990_000_000 * 0.035);
+        assertEquals(1_000_000_000, snapshot.max());
+        // Never above the largest recorded value, even when its bucket reaches further
+        assertTrue(snapshot.percentile(1.0) <= snapshot.max());
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        IntStream.range(0, 8).parallel().forEach(t -> {
+            for (int i = 0; i < 100_000; i++) {
+                histogram.record(i % 5000);
+            }
+        });
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(800_000, snapshot.count());
+        assertEquals(4999, snapshot.max());
+    }
+
+    @Test
+    void testNegativeDurationsAreRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().percentile(0.5));
+    }
+}
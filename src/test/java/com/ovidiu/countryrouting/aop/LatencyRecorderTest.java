@@ -0,0 +1,74 @@
+package com.ovidiu.countryrouting.aop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyRecorderTest {
+
+    private static final String[] DEPTH = {"maxDepth"};
+
+    @Test
+    void testSeriesPerMethodAndTags() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("AllRoutesFinder.findAllRoutes", DEPTH, List.of("10"), 2_000_000);
+        recorder.record("AllRoutesFinder.findAllRoutes", DEPTH, List.of("10"), 4_000_000);
+        recorder.record("AllRoutesFinder.findAllRoutes", DEPTH, List.of("5"), 1_000_000);
+        recorder.record("AllRoutesFinder.countRoutes", new String[0], List.of(), 3_000_000);
+
+        List<LatencyRecorder.Series> series = recorder.snapshot();
+
+        assertEquals(3, series.size());
+        assertEquals("AllRoutesFinder.countRoutes", series.get(0).method());
+        assertEquals(Map.of(), series.get(0).tags());
+        assertEquals(Map.of("maxDepth", "10"), series.get(1).tags());
+        assertEquals(2, series.get(1).histogram().count());
+        assertEquals(Map.of("maxDepth", "5"), series.get(2).tags());
+    }
+
+    @Test
+    void testTagOverflowIsFoldedIntoOther() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ReflectionTestUtils.setField(recorder, "maxSeriesPerMethod", 2);
+
+        for (int depth = 0; depth < 10; depth++) {
+            recorder.record("AllRoutesFinder.findAllRoutes", DEPTH, List.of(Integer.toString(depth)), 1000);
+        }
+        // Existing series keep recording after the cap is reached
+        recorder.record("AllRoutesFinder.findAllRoutes", DEPTH, List.of("0"), 1000);
+
+        List<LatencyRecorder.Series> series = recorder.snapshot();
+        assertEquals(3, series.size());
+        assertEquals(2, series.get(0).histogram().count());
+        assertEquals(Map.of("maxDepth", "1"), series.get(1).tags());
+        assertEquals(Map.of("maxDepth", LatencyRecorder.OVERFLOW), series.get(2).tags());
+        assertEquals(8, series.get(2).histogram().count());
+    }
+
+    @Test
+    void testPrometheusTextFormat() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("AllRoutesFinder.findAllRoutes", DEPTH, List.of("10"), 2_000_000);
+
+        String text = recorder.scrape();
+
+        assertTrue(text.contains("# TYPE method_latency_seconds summary\n"));
+        assertTrue(text.contains("method_latency_seconds{method=\"AllRoutesFinder.findAllRoutes\",maxDepth=\"10\",quantile=\"0.5\"} "));
+        assertTrue(text.contains("method_latency_seconds{method=\"AllRoutesFinder.findAllRoutes\",maxDepth=\"10\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("method_latency_seconds_count{method=\"AllRoutesFinder.findAllRoutes\",maxDepth=\"10\"} 1\n"));
+        assertTrue(text.contains("method_latency_seconds_sum{method=\"AllRoutesFinder.findAllRoutes\",maxDepth=\"10\"} 0.002\n"));
+        assertTrue(text.contains("method_latency_seconds_max{method=\"AllRoutesFinder.findAllRoutes\",maxDepth=\"10\"} 0.002\n"));
+    }
+
+    @Test
+    void testLabelValuesAreEscaped() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("X.y", new String[]{"origin"}, List.of("a\"b\\c"), 1);
+
+        assertTrue(recorder.scrape().contains("origin=\"a\\\"b\\\\c\""));
+    }
+}
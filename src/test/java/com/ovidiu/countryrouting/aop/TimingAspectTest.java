@@ -0,0 +1,69 @@
+package com.ovidiu.countryrouting.aop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingAspectTest {
+
+    static class Searches {
+
+        @TrackExecutionTime(tags = "maxDepth")
+        public int search(String origin, int maxDepth) {
+            return maxDepth;
+        }
+
+        @TrackExecutionTime
+        public void fail() {
+            throw new IllegalArgumentException("Unknown country code");
+        }
+
+        @TrackExecutionTime(tags = "depth")
+        public void misconfigured(int maxDepth) {
+        }
+    }
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private Searches proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Searches());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TimingAspect(recorder));
+        return factory.getProxy();
+    }
+
+    @Test
+    void testCallsAreRecordedPerTagValue() {
+        Searches searches = proxy();
+        assertEquals(10, searches.search("ESP", 10));
+        searches.search("FRA", 10);
+        searches.search("ESP", 4);
+
+        List<LatencyRecorder.Series> series = recorder.snapshot();
+        assertEquals(2, series.size());
+        assertEquals("Searches.search", series.get(0).method());
+        assertEquals(Map.of("maxDepth", "10"), series.get(0).tags());
+        assertEquals(2, series.get(0).histogram().count());
+        assertEquals(Map.of("maxDepth", "4"), series.get(1).tags());
+    }
+
+    @Test
+    void testFailedCallsAreRecordedToo() {
+        Searches searches = proxy();
+
+        assertThrows(IllegalArgumentException.class, searches::fail);
+        assertEquals(1, recorder.snapshot().get(0).histogram().count());
+    }
+
+    @Test
+    void testUnknownTagParameterIsRejected() {
+        Searches searches = proxy();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> searches.misconfigured(3));
+        assertTrue(ex.getMessage().contains("'depth'"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.ovidiu.countryrouting.jfr.FlightRecorderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(FlightRecorderController.class)
+class FlightRecorderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FlightRecorderService flightRecorder;
+
+    @Test
+    void testStatus() throws Exception {
+        when(flightRecorder.status()).thenReturn(Map.of("state", "NONE"));
+
+        mockMvc.perform(get("/admin/jfr"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("NONE"));
+    }
+
+    @Test
+    void testStart() throws Exception {
+        when(flightRecorder.start(Duration.ofSeconds(120))).thenReturn(Map.of("state", "RUNNING", "id", 1));
+
+        mockMvc.perform(post("/admin/jfr/start").param("maxAgeSeconds", "120"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    void testStartTwiceIsBadRequest() throws Exception {
+        when(flightRecorder.start(Duration.ofSeconds(600)))
+                .thenThrow(new IllegalStateException("A recording is already running"));
+
+        mockMvc.perform(post("/admin/jfr/start"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("A recording is already running"));
+    }
+
+    @Test
+    void testStartRejectsNonPositiveMaxAge() throws Exception {
+        mockMvc.perform(post("/admin/jfr/start").param("maxAgeSeconds", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("maxAgeSeconds must be positive"));
+
+        verifyNoInteractions(flightRecorder);
+    }
+
+    @Test
+    void testDumpIsAnAttachment() throws Exception {
+        when(flightRecorder.dump()).thenReturn(new byte[]{'F', 'L', 'R', 0});
+
+        mockMvc.perform(post("/admin/jfr/dump"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString(".jfr")))
+                .andExpect(content().bytes(new byte[]{'F', 'L', 'R', 0}));
+    }
+
+    @Test
+    void testDumpWithoutRecordingIsBadRequest() throws Exception {
+        when(flightRecorder.dump()).thenThrow(new IllegalStateException("No recording was started"));
+
+        mockMvc.perform(post("/admin/jfr/dump"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No recording was started"));
+    }
+
+    @Test
+    void testStop() throws Exception {
+        when(flightRecorder.stop()).thenReturn(Map.of("state", "STOPPED"));
+
+        mockMvc.perform(post("/admin/jfr/stop"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("STOPPED"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(GraphAdminController.class)
+class GraphAdminControllerTest {
+
+    private static final CompiledGraph OLD = CompiledGraph.compile(
+            Map.of("AUT", List.of("CZE"), "CZE", List.of("AUT"))
+    );
+
+    private static final CompiledGraph NEW = CompiledGraph.compile(
+            Map.of("AUT", List.of("CZE", "ITA"), "CZE", List.of("AUT"), "ITA", List.of("AUT"))
+    );
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SuppressWarnings("unused")
+    @MockitoBean
+    private GraphBuilder graphBuilder;
+
+    @Test
+    void testSnapshot() throws Exception {
+        when(graphBuilder.getGraph()).thenReturn(OLD);
+
+        mockMvc.perform(get("/admin/graph"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(OLD.versionTag()))
+                .andExpect(jsonPath("$.countries").value(2))
+                .andExpect(jsonPath("$.borders").value(2));
+    }
+
+    @Test
+    void testReload() throws Exception {
+        when(graphBuilder.getGraph()).thenReturn(OLD);
+        when(graphBuilder.reload()).thenReturn(NEW);
+
+        mockMvc.perform(post("/admin/graph/reload"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.previousVersion").value(OLD.versionTag()))
+                .andExpect(jsonPath("$.version").value(NEW.versionTag()))
+                .andExpect(jsonPath("$.changed").value(true))
+                .andExpect(jsonPath("$.countries").value(3));
+    }
+
+    @Test
+    void testReloadRejectsInvalidDataset() throws Exception {
+        when(graphBuilder.getGraph()).thenReturn(OLD);
+        when(graphBuilder.reload())
+                .thenThrow(new IllegalStateException("Invalid borders dataset: [AUT -> XXX]"));
+
+        mockMvc.perform(post("/admin/graph/reload"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid borders dataset: [AUT -> XXX]"));
+    }
+
+    @Test
+    void testReloadRejectsMalformedDataset() throws Exception {
+        Path file = Files.createTempFile("borders", ".json");
+        Files.writeString(file, "{\"AUT\": {\"cca3\": \"AUT\", \"borders\": [\"CZE\"");
+        GraphBuilder malformed = new GraphBuilder();
+        ReflectionTestUtils.setField(malformed, "bordersFile", file.toString());
+
+        when(graphBuilder.getGraph()).thenReturn(OLD);
+        when(graphBuilder.reload()).thenAnswer(invocation -> malformed.reload());
+
+        mockMvc.perform(post("/admin/graph/reload"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(startsWith("Invalid borders dataset: ")));
+    }
+
+    @Test
+    void testComponents() throws Exception {
+        when(graphBuilder.getGraph()).thenReturn(CompiledGraph.compile(Map.of(
+                "AUT", List.of("CZE"), "CZE", List.of("AUT"), "AUS", List.of()
+        )));
+
+        mockMvc.perform(get("/admin/graph/components"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.components").value(2))
+                .andExpect(jsonPath("$.countries.AUS.component").value(0))
+                .andExpect(jsonPath("$.countries.AUS.size").value(1))
+                .andExpect(jsonPath("$.countries.AUT.component").value(1))
+                .andExpect(jsonPath("$.countries.CZE.size").value(2));
+    }
+
+    @Test
+    void testComponentOfCountry() throws Exception {
+        when(graphBuilder.getGraph()).thenReturn(NEW);
+
+        mockMvc.perform(get("/admin/graph/components/ITA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.country").value("ITA"))
+                .andExpect(jsonPath("$.component").value(0))
+                .andExpect(jsonPath("$.size").value(3));
+
+        mockMvc.perform(get("/admin/graph/components/XXX"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown country code"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.ovidiu.countryrouting.aop.LatencyRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(MetricsController.class)
+class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SuppressWarnings("unused")
+    @MockitoBean
+    private LatencyRecorder recorder;
+
+    @Test
+    void testScrapeUsesPrometheusTextFormat() throws Exception {
+        String text = "method_latency_seconds_count{method=\"AllRoutesFinder.countRoutes\"} 3\n";
+        when(recorder.scrape()).thenReturn(text);
+
+        mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/plain"))
+                .andExpect(content().string(text));
+    }
+}
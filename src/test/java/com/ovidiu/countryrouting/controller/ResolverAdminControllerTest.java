@@ -0,0 +1,61 @@
+package com.ovidiu.countryrouting.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ResolverAdminController.class)
+class ResolverAdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CountryCodeResolver resolver;
+
+    @Test
+    void testCacheStats() throws Exception {
+        when(resolver.cacheStats()).thenReturn(CacheStats.of(3, 1, 1, 0, 2_000, 0, 0));
+        when(resolver.cacheSize()).thenReturn(1L);
+
+        mockMvc.perform(get("/admin/resolver/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1))
+                .andExpect(jsonPath("$.hitRate").value(0.75))
+                .andExpect(jsonPath("$.averageLoadMicros").value(2.0));
+    }
+
+    @Test
+    void testReload() throws Exception {
+        mockMvc.perform(post("/admin/resolver/reload"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reloaded").value(true));
+
+        verify(resolver).extractData();
+    }
+
+    @Test
+    void testReloadFailure() throws Exception {
+        doThrow(new IOException("countries.json unreadable")).when(resolver).extractData();
+
+        mockMvc.perform(post("/admin/resolver/reload"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("countries.json unreadable"));
+    }
+}
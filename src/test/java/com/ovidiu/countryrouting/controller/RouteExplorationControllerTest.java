@@ -1,17 +1,22 @@
 package com.ovidiu.countryrouting.controller;
 
 import com.ovidiu.countryrouting.routing.AllRoutesFinder;
+import com.ovidiu.countryrouting.routing.RouteStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RouteExplorationController.class)
@@ -99,4 +104,123 @@ class RouteExplorationControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Unknown country code"));
     }
+
+    @Test
+    void testMultipleRoutesBitset() throws Exception {
+        when(allRoutesFinder.findAllRoutesBitset("A", "D", 10, 10))
+                .thenReturn(List.of(
+                        List.of("A", "B", "D"),
+                        List.of("A", "C", "D")
+                ));
+
+        mockMvc.perform(get("/routing/all/bitset/A/D?maxDepth=10&maxRoutes=10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routes[0][1]").value("B"))
+                .andExpect(jsonPath("$.routes[1][1]").value("C"));
+    }
+
+    @Test
+    void testNoRoutesBitset() throws Exception {
+        when(allRoutesFinder.findAllRoutesBitset("USA", "AUS", 10, 10))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/routing/all/bitset/USA/AUS?maxDepth=10&maxRoutes=10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No land routes found"));
+    }
+
+    @Test
+    void testInvalidCountryBitset() throws Exception {
+        when(allRoutesFinder.findAllRoutesBitset("XXX", "ITA", 10, 10))
+                .thenThrow(new IllegalArgumentException("Unknown country code"));
+
+        mockMvc.perform(get("/routing/all/bitset/XXX/ITA?maxDepth=10&maxRoutes=10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown country code"));
+    }
+
+    @Test
+    void testMeetInTheMiddle() throws Exception {
+        when(allRoutesFinder.findAllRoutesMeetInTheMiddle("A", "D", 15, 10))
+                .thenReturn(List.of(List.of("A", "B", "D")));
+
+        mockMvc.perform(get("/routing/all/meet/A/D"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routes[0][1]").value("B"));
+    }
+
+    @Test
+    void testNoRoutesMeetInTheMiddle() throws Exception {
+        when(allRoutesFinder.findAllRoutesMeetInTheMiddle("USA", "AUS", 10, 10))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/routing/all/meet/USA/AUS?maxDepth=10&maxRoutes=10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No land routes found"));
+    }
+
+    @Test
+    void testCountRoutes() throws Exception {
+        when(allRoutesFinder.countRoutes("A", "D", 3))
+                .thenReturn(new long[]{0, 0, 2, 5});
+
+        mockMvc.perform(get("/routing/all/count/A/D?maxDepth=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(7))
+                .andExpect(jsonPath("$.byLength.2").value(2))
+                .andExpect(jsonPath("$.byLength.3").value(5))
+                .andExpect(jsonPath("$.byLength.1").doesNotExist());
+    }
+
+    @Test
+    void testCountRoutesInvalidCountry() throws Exception {
+        when(allRoutesFinder.countRoutes("XXX", "ITA", 10))
+                .thenThrow(new IllegalArgumentException("Unknown country code"));
+
+        mockMvc.perform(get("/routing/all/count/XXX/ITA"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown country code"));
+    }
+
+    @Test
+    void testCountRoutesTooDeep() throws Exception {
+        when(allRoutesFinder.countRoutes("FIN", "ESP", 30))
+                .thenThrow(new IllegalArgumentException("maxDepth must be at most 18 for route counts"));
+
+        mockMvc.perform(get("/routing/all/count/FIN/ESP?maxDepth=30"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("maxDepth must be at most 18 for route counts"));
+    }
+
+    @Test
+    void testStreamWritesOneRoutePerLine() throws Exception {
+        when(allRoutesFinder.streamAllRoutes("A", "D", 10, 10))
+                .thenReturn(RouteStream.of(List.of(
+                        List.of("A", "B", "D"),
+                        List.of("A", "C", "D")
+                )));
+
+        MvcResult result = mockMvc.perform(get("/routing/all/stream/A/D?maxDepth=10&maxRoutes=10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("[\"A\",\"B\",\"D\"]\n[\"A\",\"C\",\"D\"]\n"));
+    }
+
+    @Test
+    void testStreamInvalidCountry() throws Exception {
+        when(allRoutesFinder.streamAllRoutes("XXX", "ITA", 10, 10))
+                .thenThrow(new IllegalArgumentException("Unknown country code"));
+
+        MvcResult result = mockMvc.perform(get("/routing/all/stream/XXX/ITA?maxDepth=10&maxRoutes=10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown country code"));
+    }
 }
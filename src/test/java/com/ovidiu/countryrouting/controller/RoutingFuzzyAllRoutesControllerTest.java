@@ -1,17 +1,22 @@
 package com.ovidiu.countryrouting.controller;
 
 import com.ovidiu.countryrouting.routing.RouteFinder;
+import com.ovidiu.countryrouting.routing.RouteStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RoutingFuzzyAllRoutesController.class)
@@ -90,4 +95,36 @@ class RoutingFuzzyAllRoutesControllerTest {
                 .andExpect(jsonPath("$.maxRoutes").value(50))
                 .andExpect(jsonPath("$.routes[0][0]").value("ESP"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStreamWritesOneRoutePerLine() throws Exception {
+        when(routeFinder.streamAllRoutesFuzzy("A", "D", 10, 10))
+                .thenReturn(RouteStream.of(List.of(
+                        List.of("A", "B", "D"),
+                        List.of("A", "C", "D")
+                )));
+
+        MvcResult result = mockMvc.perform(get("/routing/fuzzy/all/stream/A/D?maxDepth=10&maxRoutes=10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("[\"A\",\"B\",\"D\"]\n[\"A\",\"C\",\"D\"]\n"));
+    }
+
+    @Test
+    void testStreamInvalidCountry() throws Exception {
+        when(routeFinder.streamAllRoutesFuzzy("XXX", "ITA", 10, 10))
+                .thenThrow(new IllegalArgumentException("Unknown or invalid country name/code"));
+
+        MvcResult result = mockMvc.perform(get("/routing/fuzzy/all/stream/XXX/ITA?maxDepth=10&maxRoutes=10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown or invalid country name/code"));
+    }
+}
@@ -1,16 +1,21 @@
 package com.ovidiu.countryrouting.controller;
 
+import com.ovidiu.countryrouting.routing.BatchRouteResult;
 import com.ovidiu.countryrouting.routing.RouteFinder;
+import com.ovidiu.countryrouting.routing.RoutePair;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -55,4 +60,38 @@ class RoutingFuzzyMatchingControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("No land route found"));
     }
+
+    @Test
+    void testBatch() throws Exception {
+        when(routeFinder.findShortestRoutesFuzzy(List.of(
+                new RoutePair("SPN", "ITL"),
+                new RoutePair("XXX", "ITA")
+        ))).thenReturn(List.of(
+                new BatchRouteResult("SPN", "ITL", List.of("ESP", "FRA", "ITA"), null),
+                new BatchRouteResult("XXX", "ITA", null, "Unknown or invalid country name/code")
+        ));
+
+        mockMvc.perform(post("/routing/fuzzy/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"origin": "SPN", "destination": "ITL"},
+                                 {"origin": "XXX", "destination": "ITA"}]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].route[1]").value("FRA"))
+                .andExpect(jsonPath("$.results[0].error").doesNotExist())
+                .andExpect(jsonPath("$.results[1].origin").value("XXX"))
+                .andExpect(jsonPath("$.results[1].error").value("Unknown or invalid country name/code"));
+    }
+
+    @Test
+    void testBatchTooLarge() throws Exception {
+        String pairs = "[" + String.join(",", Collections.nCopies(1001, "{\"origin\": \"ESP\", \"destination\": \"ITA\"}")) + "]";
+
+        mockMvc.perform(post("/routing/fuzzy/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(pairs))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Too many pairs: 1001 (max 1000)"));
+    }
 }
@@ -9,6 +9,9 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -58,4 +61,82 @@ class CountryCodeResolverTest {
         assertNull(resolver.resolve("XYZ"));           // garbage NOT rejected
         assertNull(resolver.resolve("12345"));            // numeric garbage NOT rejected
     }
+
+    @Test
+    void testResolveAllMatchesResolve() {
+        List<String> inputs = Arrays.asList("SPN", "spn ", "ITA", "Germany", "XXXX", null, "SPN");
+
+        Map<String, String> resolved = resolver.resolveAll(inputs);
+
+        assertEquals("ESP", resolved.get("SPN"));
+        assertEquals("ESP", resolved.get("spn "));
+        assertEquals("ITA", resolved.get("ITA"));
+        assertEquals(resolver.resolve("Germany"), resolved.get("Germany"));
+        assertTrue(resolved.containsKey("XXXX"));
+        assertNull(resolved.get("XXXX"));
+    }
+
+    @Test
+    void testFuzzyResolutionsAreCached() {
+        assertEquals("ROU", resolver.resolve("Rumania"));
+        assertEquals("ROU", resolver.resolve("  rumania"));   // same normalized key
+
+        assertEquals(1, resolver.cacheStats().missCount());
+        assertEquals(1, resolver.cacheStats().hitCount());
+    }
+
+    @Test
+    void testMissesAreCached() {
+        assertNull(resolver.resolve("WXWXWXWXWXA"));
+        assertNull(resolver.resolve("WXWXWXWXWXA"));
+
+        assertEquals(1, resolver.cacheStats().hitCount());
+        assertEquals(1, resolver.cacheSize());
+    }
+
+    @Test
+    void testExactAndGarbageInputsBypassTheCache() {
+        resolver.resolve("CZE");
+        resolver.resolve("Austria");
+        resolver.resolve("12345");
+
+        assertEquals(0, resolver.cacheStats().requestCount());
+    }
+
+    @Test
+    void testReloadStartsAnEmptyCache() throws IOException {
+        resolver.resolve("Rumania");
+        resolver.resolve("Rumania");
+
+        resolver.extractData();
+
+        assertEquals(0, resolver.cacheSize());
+        assertEquals(0, resolver.cacheStats().hitCount());
+        assertEquals("ROU", resolver.resolve("Rumania"));
+        assertEquals("CZE", resolver.resolve("CZE"));
+    }
+
+    @Test
+    void testNormalizeFoldsAccents() {
+        assertEquals("OSTERREICH", CountryCodeResolver.normalize(" Österreich "));
+        assertEquals("ESPANA", CountryCodeResolver.normalize("España"));
+        assertEquals("COTE D'IVOIRE", CountryCodeResolver.normalize("Côte d'Ivoire"));
+        assertEquals("ROMANIA", CountryCodeResolver.normalize("romania"));
+    }
+
+    @Test
+    void testNativeNamesMatchAsciiInput() {
+        assertEquals("AUT", resolver.resolve("Osterreich"));    // exact, once folded
+        assertEquals("AUT", resolver.resolve("österreich"));
+        assertEquals("ESP", resolver.resolve("Espana"));
+        assertEquals("TUR", resolver.resolve("TURKIYE"));
+        assertEquals("AUT", resolver.resolve("Osterrich"));     // fuzzy against the folded name
+    }
+
+    @Test
+    void testVowelMaskIsTheConsonantVowelPattern() {
+        assertEquals(0b1101010L, CountryCodeResolver.vowels("ROMANIA"));   // CVCVCVV
+        assertEquals(CountryCodeResolver.vowels("ITALY"), CountryCodeResolver.vowels("IRAQS"));
+        assertEquals(0L, CountryCodeResolver.vowels("SPN"));
+    }
 }
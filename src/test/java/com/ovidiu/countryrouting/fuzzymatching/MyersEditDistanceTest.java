@@ -0,0 +1,99 @@
+package com.ovidiu.countryrouting.fuzzymatching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyersEditDistanceTest {
+
+    @Test
+    void testKnownDistances() {
+        assertEquals(3, new MyersEditDistance("KITTEN").distance("SITTING"));
+        assertEquals(1, new MyersEditDistance("GERMNY").distance("GERMANY"));
+        assertEquals(2, new MyersEditDistance("FRNACE").distance("FRANCE"));
+        assertEquals(0, new MyersEditDistance("ROMANIA").distance("ROMANIA"));
+        assertEquals(4, new MyersEditDistance("").distance("PERU"));
+        assertEquals(4, new MyersEditDistance("PERU").distance(""));
+    }
+
+    @Test
+    void testBoundedDistanceStopsAboveTheBound() {
+        MyersEditDistance distance = new MyersEditDistance("SPN");
+
+        assertEquals(2, distance.distance("SPAIN", 2));
+        assertEquals(2, distance.distance("XYZ", 1));               // 3 > bound, so bound + 1
+        assertEquals(6, distance.distance("UNITED KINGDOM", 5));    // length difference alone exceeds it
+    }
+
+    @Test
+    void testNonAsciiCharacters() {
+        assertEquals(1, new MyersEditDistance("CÔTE").distance("COTE"));
+        assertEquals(0, new MyersEditDistance("ÅLAND").distance("ÅLAND"));
+        assertEquals(2, new MyersEditDistance("ÉÑ").distance("NE"));
+    }
+
+    @Test
+    void testMatchesDynamicProgrammingOnRandomStrings() {
+        Random random = new Random(18);
+
+        for (int i = 0; i < 20_000; i++) {
+            String pattern = random(random, random.nextInt(16));
+            String text = random(random, random.nextInt(16));
+            int expected = levenshtein(pattern, text);
+            MyersEditDistance distance = new MyersEditDistance(pattern);
+
+            assertEquals(expected, distance.distance(text), pattern + " / " + text);
+
+            int bound = random.nextInt(8);
+            int bounded = distance.distance(text, bound);
+            if (expected <= bound) {
+                assertEquals(expected, bounded, pattern + " / " + text + " bound " + bound);
+            } else {
+                assertEquals(bound + 1, bounded, pattern + " / " + text + " bound " + bound);
+            }
+        }
+    }
+
+    @Test
+    void testPatternsAroundTheWordSize() {
+        Random random = new Random(64);
+
+        for (int length : new int[]{63, 64, 65, 100}) {
+            for (int i = 0; i < 200; i++) {
+                String pattern = random(random, length);
+                String text = random(random, length - 10 + random.nextInt(20));
+                int expected = levenshtein(pattern, text);
+                MyersEditDistance distance = new MyersEditDistance(pattern);
+
+                assertEquals(expected, distance.distance(text), "pattern length " + length);
+                assertEquals(Math.min(expected, 31), distance.distance(text, 30), "pattern length " + length);
+            }
+        }
+    }
+
+    /** Small alphabet, with a non-ASCII letter, so matches and near-matches are common. */
+    private static String random(Random random, int length) {
+        String alphabet = "ABCDEÉ";
+        StringBuilder s = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            s.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return s.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,140 @@
+package com.ovidiu.countryrouting.fuzzymatching;
+
+import com.ovidiu.countryrouting.utils.CountryBorderMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameIndexTest {
+
+    private static final List<String> NAMES = new ArrayList<>();
+    private static final List<String> CODES = new ArrayList<>();
+    private static NameIndex index;
+
+    @BeforeAll
+    static void loadNames() throws Exception {
+        new CountryBorderMapper().loadAndTransform().forEach((cca3, compact) -> {
+            for (String name : compact.getNames()) {
+                NAMES.add(CountryCodeResolver.normalize(name));
+                CODES.add(cca3);
+            }
+        });
+        index = NameIndex.build(NAMES, CODES);
+    }
+
+    @Test
+    void testGramsArePaddedAndDistinct() {
+        assertEquals(5, NameIndex.grams("ROM").length);   // ##R #RO ROM OM# M##
+        assertEquals(3, NameIndex.grams("A").length);     // ##A #A# A##
+        assertEquals(5, NameIndex.grams("AAAA").length);  // ##A #AA AAA AA# A## (AAA twice)
+        assertEquals(0, NameIndex.grams("").length);
+    }
+
+    @Test
+    void testTiesGoToTheLowestId() {
+        NameIndex small = NameIndex.build(List.of("ITALY", "ITALIA", "ITALY"), List.of("X", "ITA", "Y"));
+
+        NameIndex.Match match = small.best("ITALY", scorer(small, "ITALY"), 60, new int[0]);
+
+        assertEquals(0, match.id());
+        assertEquals("X", small.code(match.id()));
+    }
+
+    @Test
+    void testMatchesExhaustiveScoringOnTypos() {
+        Random random = new Random(42);
+        List<String> inputs = new ArrayList<>(List.of(
+                "GERMNY", "FRNACE", "ITLY", "UNTIED KINGDOM", "SWIZERLAND", "PORTGUAL", "ARGENTNA",
+                "AUSTRIA", "ROM", "SPN", "GR", "XYZ", "XXXX", "ESPANA", "DEUTSCHLND", "NIPPON", "A"));
+
+        for (int i = 0; i < 400; i++) {
+            String name = NAMES.get(random.nextInt(NAMES.size()));
+            inputs.add(switch (i % 4) {
+                case 0 -> typo(name, 1, random);
+                case 1 -> typo(name, 2, random);
+                case 2 -> name.substring(0, Math.min(name.length(), 1 + random.nextInt(4)));
+                default -> randomLetters(1 + random.nextInt(10), random);
+            });
+        }
+
+        for (String input : inputs) {
+            NameIndex.Match match = index.best(input, scorer(index, input), 60, sp(input));
+            int expected = exhaustive(input);
+
+            assertEquals(expected, match.id(), () -> input + " -> " + (match.id() < 0 ? null : NAMES.get(match.id()))
+                    + ", expected " + (expected < 0 ? null : NAMES.get(expected)));
+        }
+    }
+
+    @Test
+    void testScoresFewNamesForTypos() {
+        for (String input : List.of("GERMNY", "FRNACE", "PORTGUAL", "SWIZERLAND", "ARGENTNA")) {
+            NameIndex.Match match = index.best(input, scorer(index, input), 60, sp(input));
+            assertTrue(match.scored() < NAMES.size() / 4, input + " scored " + match.scored() + " of " + NAMES.size());
+        }
+    }
+
+    /** First best in id order, like the resolver's original full scan. */
+    private static int exhaustive(String input) {
+        int bestScore = Integer.MIN_VALUE;
+        int bestId = -1;
+        for (int id = 0; id < NAMES.size(); id++) {
+            int score = scoreName(input, NAMES.get(id));
+            if (score > bestScore) {
+                bestScore = score;
+                bestId = id;
+            }
+        }
+        return bestScore >= 60 ? bestId : -1;
+    }
+
+    private static NameIndex.Scorer scorer(NameIndex index, String input) {
+        return new NameIndex.Scorer() {
+            @Override
+            public int score(int id) {
+                return scoreName(input, index.name(id));
+            }
+
+            @Override
+            public int upperBound(int overlap, int grams, int nameLength) {
+                return CountryCodeResolver.nameScoreBound(input.length(), overlap, grams, nameLength);
+            }
+        };
+    }
+
+    private static int scoreName(String input, String name) {
+        return CountryCodeResolver.scoreNameMatch(new MyersEditDistance(input), CountryCodeResolver.vowels(input),
+                name, CountryCodeResolver.vowels(name));
+    }
+
+    private static int[] sp(String input) {
+        return input.length() <= 3
+                ? IntStream.range(0, NAMES.size()).filter(id -> NAMES.get(id).startsWith("SP")).toArray()
+                : new int[0];
+    }
+
+    private static String typo(String name, int edits, Random random) {
+        StringBuilder s = new StringBuilder(name);
+        for (int e = 0; e < edits && s.length() > 1; e++) {
+            int at = random.nextInt(s.length());
+            switch (random.nextInt(3)) {
+                case 0 -> s.deleteCharAt(at);
+                case 1 -> s.setCharAt(at, (char) ('A' + random.nextInt(26)));
+                default -> s.insert(at, (char) ('A' + random.nextInt(26)));
+            }
+        }
+        return s.toString();
+    }
+
+    private static String randomLetters(int length, Random random) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            s.append((char) ('A' + random.nextInt(26)));
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.ovidiu.countryrouting.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledGraphTest {
+
+    @Test
+    void testIdsAreDenseAndSorted() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "ITA", List.of("AUT"),
+                "AUT", List.of("CZE", "ITA"),
+                "CZE", List.of("AUT")
+        ));
+
+        assertEquals(3, graph.size());
+        assertEquals(0, graph.id("AUT"));
+        assertEquals(1, graph.id("CZE"));
+        assertEquals(2, graph.id("ITA"));
+        assertEquals("ITA", graph.code(2));
+        assertEquals(-1, graph.id("XXX"));
+        assertEquals(-1, graph.id(null));
+    }
+
+    @Test
+    void testNeighborsKeepBordersOrder() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "AUT", List.of("ITA", "CZE"),
+                "CZE", List.of("AUT"),
+                "ITA", List.of("AUT")
+        ));
+
+        int aut = graph.id("AUT");
+        List<String> neighbors = new ArrayList<>();
+        for (int e = graph.edgeStart(aut); e < graph.edgeEnd(aut); e++) {
+            neighbors.add(graph.code(graph.neighborAt(e)));
+        }
+
+        assertEquals(List.of("ITA", "CZE"), neighbors);
+        assertEquals(2, graph.degree(aut));
+        assertEquals(4, graph.edgeCount());
+    }
+
+    @Test
+    void testComponentsIgnoreBorderDirection() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "LKA", List.of("IND"),
+                "IND", List.of("PAK"),
+                "PAK", List.of("IND"),
+                "AUS", List.of(),
+                "ESP", List.of("FRA"),
+                "FRA", List.of("ESP")
+        ));
+
+        assertEquals(3, graph.componentCount());
+        assertTrue(graph.sameComponent(graph.id("LKA"), graph.id("PAK")));
+        assertTrue(graph.sameComponent(graph.id("PAK"), graph.id("LKA")));
+        assertFalse(graph.sameComponent(graph.id("ESP"), graph.id("IND")));
+        assertEquals(3, graph.componentSize(graph.id("IND")));
+        assertEquals(1, graph.componentSize(graph.id("AUS")));
+        assertEquals(graph.component(graph.id("ESP")), graph.component(graph.id("FRA")));
+    }
+
+    @Test
+    void testComponentsOnBordersJson() {
+        CompiledGraph graph = new GraphBuilder().getGraph();
+        ShortestPathTable table = graph.shortestPaths();
+
+        for (int a = 0; a < graph.size(); a++) {
+            for (int b = 0; b < graph.size(); b++) {
+                if (table.isReachable(a, b)) {
+                    assertTrue(graph.sameComponent(a, b));
+                }
+            }
+        }
+        assertFalse(graph.sameComponent(graph.id("ESP"), graph.id("AUS")));
+        assertEquals(1, graph.componentSize(graph.id("ABW")));
+    }
+
+    @Test
+    void testNoTableAboveTheMemoryCap() {
+        Map<String, List<String>> chain = new HashMap<>();
+        for (int i = 0; i <= ShortestPathTable.MAX_TABLE_NODES; i++) {
+            chain.put("N" + i, i == 0 ? List.of() : List.of("N" + (i - 1)));
+        }
+
+        CompiledGraph graph = CompiledGraph.compile(chain);
+
+        assertEquals(ShortestPathTable.MAX_TABLE_NODES + 1, graph.size());
+        assertNull(graph.shortestPaths());
+    }
+
+    @Test
+    void testReversiblePairs() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "LKA", List.of("IND"),
+                "IND", List.of("PAK"),
+                "PAK", List.of("IND", "AFG"),
+                "AFG", List.of("PAK"),
+                "ESP", List.of("FRA"),
+                "FRA", List.of("ITA"),
+                "ITA", List.of("FRA")
+        ));
+
+        // LKA only starts routes, so the mutual IND-PAK-AFG part stays reversible
+        assertTrue(graph.reversible(graph.id("IND"), graph.id("AFG")));
+        assertFalse(graph.reversible(graph.id("LKA"), graph.id("IND")));
+        assertFalse(graph.reversible(graph.id("IND"), graph.id("ESP")));
+        // ESP -> FRA is one-way between two nodes of that component, but ESP has no in-edges
+        assertTrue(graph.reversible(graph.id("FRA"), graph.id("ITA")));
+        assertFalse(graph.reversible(graph.id("ESP"), graph.id("ITA")));
+
+        CompiledGraph oneWay = CompiledGraph.compile(Map.of(
+                "A", List.of("B"), "B", List.of("C", "A"), "C", List.of("A")
+        ));
+        assertFalse(oneWay.reversible(oneWay.id("A"), oneWay.id("B")));
+    }
+
+    @Test
+    void testInEdges() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "IND", List.of("PAK"),
+                "LKA", List.of("IND"),
+                "PAK", List.of("IND")
+        ));
+
+        int ind = graph.id("IND");
+        List<String> bordering = new ArrayList<>();
+        for (int e = graph.inEdgeStart(ind); e < graph.inEdgeEnd(ind); e++) {
+            bordering.add(graph.code(graph.inNeighborAt(e)));
+        }
+
+        assertEquals(List.of("LKA", "PAK"), bordering);
+        assertEquals(0, graph.inEdgeEnd(graph.id("LKA")) - graph.inEdgeStart(graph.id("LKA")));
+    }
+
+    @Test
+    void testBorderOnlyCountriesBecomeIsolatedNodes() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of("USA", List.of("MEX")));
+
+        assertTrue(graph.contains("MEX"));
+        assertEquals(0, graph.degree(graph.id("MEX")));
+    }
+
+    @Test
+    void testToCodes() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "A", List.of("B"),
+                "B", List.of("C"),
+                "C", List.of()
+        ));
+
+        assertEquals(List.of("A", "B", "C"), graph.toCodes(new int[]{0, 1, 2, 0}, 3));
+        assertEquals(List.of("C", "A"), graph.toCodes(List.of(2, 0)));
+    }
+}
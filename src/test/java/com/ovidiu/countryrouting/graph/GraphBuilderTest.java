@@ -4,11 +4,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
 @ExtendWith(MockitoExtension.class)
 class GraphBuilderTest {
     @Spy
@@ -25,4 +32,101 @@ class GraphBuilderTest {
         assertTrue(graph.get("CZE").contains("AUT"));
         assertTrue(graph.get("ITA").contains("AUT"));
     }
+
+    @Test
+    void testCompiledGraphIsBuiltOnce() {
+        CompiledGraph first = builder.getGraph();
+        CompiledGraph second = builder.getGraph();
+
+        assertSame(first, second);
+        verify(builder, times(1)).buildGraph();
+
+        int cze = first.id("CZE");
+        boolean bordersAustria = false;
+        for (int e = first.edgeStart(cze); e < first.edgeEnd(cze); e++) {
+            bordersAustria |= first.code(first.neighborAt(e)).equals("AUT");
+        }
+        assertTrue(bordersAustria);
+    }
+
+    @Test
+    void testReloadSwapsSnapshotAndPublishesEvent() throws Exception {
+        Path file = Files.createTempFile("borders", ".json");
+        Files.writeString(file, """
+                {"AUT": {"cca3": "AUT", "borders": ["CZE"]},
+                 "CZE": {"cca3": "CZE", "borders": ["AUT"]}}
+                """);
+        ReflectionTestUtils.setField(builder, "bordersFile", file.toString());
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        builder.setEventPublisher(publisher);
+
+        CompiledGraph before = builder.getGraph();
+        assertEquals(2, before.size());
+
+        Files.writeString(file, """
+                {"AUT": {"cca3": "AUT", "borders": ["CZE", "ITA"]},
+                 "CZE": {"cca3": "CZE", "borders": ["AUT"]},
+                 "ITA": {"cca3": "ITA", "borders": ["AUT"]}}
+                """);
+        CompiledGraph after = builder.reload();
+
+        assertSame(after, builder.getGraph());
+        assertEquals(3, after.size());
+        assertNotEquals(before.version(), after.version());
+        verify(publisher).publishEvent(new GraphReloadedEvent(before, after));
+
+        // identical content keeps the current snapshot
+        assertSame(after, builder.reload());
+        verify(publisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void testInvalidDatasetKeepsCurrentSnapshot() throws Exception {
+        Path file = Files.createTempFile("borders", ".json");
+        Files.writeString(file, """
+                {"AUT": {"cca3": "AUT", "borders": ["CZE"]},
+                 "CZE": {"cca3": "CZE", "borders": ["AUT"]}}
+                """);
+        ReflectionTestUtils.setField(builder, "bordersFile", file.toString());
+
+        CompiledGraph before = builder.getGraph();
+
+        Files.writeString(file, """
+                {"AUT": {"cca3": "AUT", "borders": ["CZE", "XXX"]},
+                 "CZE": {"cca3": "CZE", "borders": ["AUT"]}}
+                """);
+
+        assertThrows(IllegalStateException.class, () -> builder.reload());
+        assertSame(before, builder.getGraph());
+    }
+
+    @Test
+    void testMalformedDatasetKeepsCurrentSnapshot() throws Exception {
+        Path file = Files.createTempFile("borders", ".json");
+        Files.writeString(file, """
+                {"AUT": {"cca3": "AUT", "borders": ["CZE"]},
+                 "CZE": {"cca3": "CZE", "borders": ["AUT"]}}
+                """);
+        ReflectionTestUtils.setField(builder, "bordersFile", file.toString());
+
+        CompiledGraph before = builder.getGraph();
+
+        // Saved half-way through an edit
+        Files.writeString(file, """
+                {"AUT": {"cca3": "AUT", "borders": ["CZE"]},
+                 "CZE": {"cca3": "CZE", "bord
+                """);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> builder.reload());
+        assertTrue(e.getMessage().startsWith("Invalid borders dataset: "), e.getMessage());
+        assertSame(before, builder.getGraph());
+    }
+
+    @Test
+    void testSameDatasetHasSameVersion() {
+        assertEquals(
+                CompiledGraph.compile(builder.buildGraph()).version(),
+                CompiledGraph.compile(builder.buildGraph()).version()
+        );
+    }
 }
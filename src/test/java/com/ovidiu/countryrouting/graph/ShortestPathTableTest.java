@@ -0,0 +1,105 @@
+package com.ovidiu.countryrouting.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortestPathTableTest {
+
+    @Test
+    void testRouteAndDistance() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "CZE", List.of("AUT", "DEU"),
+                "AUT", List.of("CZE", "ITA"),
+                "DEU", List.of("CZE"),
+                "ITA", List.of("AUT")
+        ));
+        ShortestPathTable table = graph.shortestPaths();
+
+        int cze = graph.id("CZE");
+        int ita = graph.id("ITA");
+
+        assertEquals(2, table.distance(cze, ita));
+        assertEquals(List.of("CZE", "AUT", "ITA"), codes(graph, table.route(cze, ita)));
+        assertEquals(List.of("CZE"), codes(graph, table.route(cze, cze)));
+    }
+
+    @Test
+    void testUnreachable() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "USA", List.of("MEX"),
+                "MEX", List.of("USA"),
+                "AUS", List.of()
+        ));
+        ShortestPathTable table = graph.shortestPaths();
+
+        assertFalse(table.isReachable(graph.id("USA"), graph.id("AUS")));
+        assertEquals(-1, table.distance(graph.id("AUS"), graph.id("MEX")));
+        assertNull(table.route(graph.id("USA"), graph.id("AUS")));
+    }
+
+    @Test
+    void testDirectedBorders() {
+        // LKA lists IND as a border, IND does not list LKA
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "LKA", List.of("IND"),
+                "IND", List.of()
+        ));
+        ShortestPathTable table = graph.shortestPaths();
+
+        assertEquals(1, table.distance(graph.id("LKA"), graph.id("IND")));
+        assertFalse(table.isReachable(graph.id("IND"), graph.id("LKA")));
+    }
+
+    @Test
+    void testMatchesBfsOnBordersJson() {
+        CompiledGraph graph = new GraphBuilder().getGraph();
+        ShortestPathTable table = graph.shortestPaths();
+
+        for (int origin = 0; origin < graph.size(); origin++) {
+            int[] parent = bfsTree(graph, origin);
+
+            for (int destination = 0; destination < graph.size(); destination++) {
+                int[] route = table.route(origin, destination);
+
+                if (parent[destination] < 0) {
+                    assertNull(route);
+                    continue;
+                }
+
+                List<Integer> expected = new LinkedList<>();
+                for (int step = destination; step != origin; step = parent[step]) {
+                    expected.addFirst(step);
+                }
+                expected.addFirst(origin);
+
+                assertEquals(expected, Arrays.stream(route).boxed().toList());
+            }
+        }
+    }
+
+    private int[] bfsTree(CompiledGraph graph, int origin) {
+        int[] parent = new int[graph.size()];
+        Arrays.fill(parent, -1);
+        parent[origin] = origin;
+
+        Deque<Integer> queue = new ArrayDeque<>(List.of(origin));
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+                int neighbor = graph.neighborAt(e);
+                if (parent[neighbor] < 0) {
+                    parent[neighbor] = current;
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return parent;
+    }
+
+    private List<String> codes(CompiledGraph graph, int[] path) {
+        return graph.toCodes(path, path.length);
+    }
+}
@@ -0,0 +1,118 @@
+package com.ovidiu.countryrouting.jfr;
+
+import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.routing.AllRoutesCacheEntry;
+import com.ovidiu.countryrouting.routing.AllRoutesCachePersistence;
+import com.ovidiu.countryrouting.routing.AllRoutesFinder;
+import com.ovidiu.countryrouting.utils.CountryBorderMapper;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    private final FlightRecorderService service = new FlightRecorderService();
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void testLifecycle() throws Exception {
+        assertEquals("NONE", service.status().get("state"));
+        assertThrows(IllegalStateException.class, service::dump);
+        assertThrows(IllegalStateException.class, service::stop);
+
+        service.start(Duration.ofMinutes(1));
+        assertEquals("RUNNING", service.status().get("state"));
+        assertEquals(60L, service.status().get("maxAgeSeconds"));
+        assertThrows(IllegalStateException.class, () -> service.start(Duration.ofMinutes(1)));
+
+        assertEquals("STOPPED", service.stop().get("state"));
+        // A stopped recording is still there to dump, and a new one may start
+        assertTrue(service.dump().length > 0);
+        assertEquals("RUNNING", service.start(Duration.ofMinutes(1)).get("state"));
+    }
+
+    @Test
+    void testDumpContainsRoutingEvents() throws Exception {
+        service.start(Duration.ofMinutes(1));
+
+        CountryCodeResolver resolver = new CountryCodeResolver(new CountryBorderMapper());
+        resolver.extractData();
+        assertEquals("DEU", resolver.resolve("Germany"));
+        assertNull(resolver.resolve("12345"));
+
+        AllRoutesFinder finder = new AllRoutesFinder(new GraphBuilder());
+        int routes = finder.findAllRoutes("ESP", "FRA", 4, 100).size();
+
+        AllRoutesCachePersistence persistence =
+                new AllRoutesCachePersistence(dir.resolve("cache.bin"), dir.resolve("cache.log"), Duration.ZERO);
+        persistence.load();
+        persistence.append("ESP->FRA", new AllRoutesCacheEntry(4, 100, List.of(List.of("ESP", "FRA"))));
+        persistence.close();
+
+        Path file = dir.resolve("dump.jfr");
+        Files.write(file, service.dump());
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        RecordedEvent germany = only(events, "com.ovidiu.countryrouting.Resolve", "input", "Germany");
+        assertEquals("EXACT_NAME", germany.getString("stage"));
+        assertEquals("DEU", germany.getString("match"));
+
+        RecordedEvent garbage = only(events, "com.ovidiu.countryrouting.Resolve", "input", "12345");
+        assertEquals("GARBAGE", garbage.getString("stage"));
+        assertNull(garbage.getString("match"));
+
+        RecordedEvent search = only(events, "com.ovidiu.countryrouting.RouteSearch", "engine", "RECURSIVE");
+        assertEquals("ESP", search.getString("origin"));
+        assertEquals(4, search.getInt("maxDepth"));
+        assertEquals(routes, search.getLong("routesEmitted"));
+        assertTrue(search.getLong("nodesExpanded") > 0);
+        assertTrue(search.getInt("depthReached") <= 4);
+
+        RecordedEvent append = only(events, "com.ovidiu.countryrouting.CacheSave", "compaction", false);
+        assertEquals(1, append.getInt("entries"));
+        assertTrue(append.getBoolean("succeeded"));
+        assertTrue(append.getLong("bytes") > 0);
+
+        RecordedEvent compaction = only(events, "com.ovidiu.countryrouting.CacheSave", "compaction", true);
+        assertEquals(1, compaction.getInt("entries"));
+        assertTrue(compaction.getBoolean("succeeded"));
+    }
+
+    @Test
+    void testEventsAreOffWithoutRecording() throws Exception {
+        assertFalse(new RouteSearchEvent().shouldCommit());
+
+        service.start(Duration.ofMinutes(1));
+        assertTrue(new RouteSearchEvent().shouldCommit());
+
+        service.stop();
+        assertFalse(new RouteSearchEvent().shouldCommit());
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String type, String field, Object value) {
+        List<RecordedEvent> matches = events.stream()
+                .filter(event -> event.getEventType().getName().equals(type))
+                .filter(event -> value.equals(event.getValue(field)))
+                .toList();
+        assertEquals(1, matches.size(), type + " with " + field + "=" + value);
+        return matches.get(0);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllRoutesCacheEntryTest {
+
+    private static final List<List<String>> ROUTES = List.of(
+            List.of("ESP", "FRA", "ITA"),
+            List.of("ESP", "FRA", "CHE", "ITA"),
+            List.of("ESP", "FRA", "DEU", "AUT", "ITA"));
+
+    @Test
+    void testRoundTrip() {
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, ROUTES);
+
+        assertEquals(10, entry.getMaxDepth());
+        assertEquals(50, entry.getMaxRoutes());
+        assertEquals(3, entry.routeCount());
+        assertEquals(ROUTES, entry.getRoutes());
+        assertEquals(6, entry.countries().length);
+    }
+
+    @Test
+    void testRoutesFiltersByDepthAndLimit() {
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, ROUTES);
+
+        assertEquals(List.of(ROUTES.get(0), ROUTES.get(1)), entry.routes(3, 10));
+        assertEquals(List.of(ROUTES.get(0)), entry.routes(10, 1));
+        assertEquals(List.of(), entry.routes(1, 10));
+    }
+
+    @Test
+    void testReversed() {
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, ROUTES);
+        AllRoutesCacheEntry reversed = entry.reversed();
+
+        List<List<String>> expected = new ArrayList<>();
+        for (List<String> route : ROUTES) {
+            expected.add(route.reversed());
+        }
+        assertEquals(expected, reversed.getRoutes());
+        assertEquals(expected.subList(0, 2), reversed.routes(3, 10));
+        assertEquals(List.of("ITA", "AUT", "DEU", "FRA", "ESP"), reversed.getRoutes().get(2));
+        assertEquals(ROUTES, reversed.reversed().getRoutes());
+    }
+
+    @Test
+    void testDecodedRoutesAreCopies() {
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, ROUTES);
+
+        entry.getRoutes().getFirst().set(0, "XXX");
+
+        assertEquals(ROUTES, entry.getRoutes());
+    }
+
+    @Test
+    void testOfGraphIds() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "ESP", List.of("FRA"), "FRA", List.of("ITA", "CHE"), "CHE", List.of("ITA"), "ITA", List.of()));
+        List<int[]> ids = new ArrayList<>();
+        for (List<String> route : ROUTES.subList(0, 2)) {
+            ids.add(route.stream().mapToInt(graph::id).toArray());
+        }
+
+        AllRoutesCacheEntry entry = AllRoutesCacheEntry.of(5, 10, ids, graph);
+
+        assertEquals(ROUTES.subList(0, 2), entry.getRoutes());
+        assertEquals(4, entry.countries().length);
+    }
+
+    @Test
+    void testSharedPrefixesAreStoredOnce() {
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, ROUTES);
+
+        // ESP, FRA, then ITA | CHE, ITA | DEU, AUT, ITA
+        assertEquals(8, entry.nodeCount());
+        assertEquals(ROUTES.get(1), entry.getRoutes().get(1));
+    }
+
+    @Test
+    void testOrderIsKeptWhenPrefixesAreNotContiguous() {
+        List<List<String>> routes = List.of(
+                List.of("ESP", "FRA", "ITA"),
+                List.of("ESP", "AND", "FRA", "ITA"),
+                List.of("ESP", "FRA", "CHE", "ITA"));
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, routes);
+
+        assertEquals(routes, entry.getRoutes());
+        assertEquals(routes, new ArrayList<>(entry.getRoutes()));
+        assertEquals(routes.get(2), entry.getRoutes().get(2));
+    }
+
+    @Test
+    void testRoutesThatArePrefixesOfEachOther() {
+        List<List<String>> routes = List.of(
+                List.of("ESP"),
+                List.of("ESP", "FRA"),
+                List.of("ESP", "FRA"),
+                List.of("ESP"));
+        AllRoutesCacheEntry entry = new AllRoutesCacheEntry(10, 50, routes);
+
+        assertEquals(4, entry.routeCount());
+        assertEquals(routes, new ArrayList<>(entry.getRoutes()));
+    }
+
+    @Test
+    void testEmptyRouteIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AllRoutesCacheEntry(10, 50, List.of(List.of())));
+    }
+
+    @Test
+    void testWeightGrowsWithUnsharedNodes() {
+        AllRoutesCacheEntry empty = new AllRoutesCacheEntry(10, 50, List.of());
+        AllRoutesCacheEntry small = new AllRoutesCacheEntry(10, 50, ROUTES);
+
+        List<List<String>> many = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            many.add(List.of("ESP", "FRA", "C" + i, "ITA"));
+        }
+        AllRoutesCacheEntry large = new AllRoutesCacheEntry(10, 5000, many);
+
+        assertTrue(empty.weight() < small.weight());
+        // ESP and FRA once, then two nodes of 3 bytes and one table reference per route
+        assertEquals(2 + 2 * 1000, large.nodeCount());
+        assertTrue(large.weight() < 12 * 1000);
+    }
+
+    @Test
+    void testJsonShapeIsUnchanged() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(new AllRoutesCacheEntry(10, 50, ROUTES.subList(0, 1)));
+
+        assertEquals("{\"maxDepth\":10,\"maxRoutes\":50,\"routes\":[[\"ESP\",\"FRA\",\"ITA\"]]}", json);
+        assertEquals(ROUTES.subList(0, 1), mapper.readValue(json, AllRoutesCacheEntry.class).getRoutes());
+    }
+}
@@ -0,0 +1,144 @@
+package com.ovidiu.countryrouting.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllRoutesCachePersistenceTest {
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(5);
+
+    @TempDir
+    Path dir;
+
+    private Path file() {
+        return dir.resolve("cache.bin");
+    }
+
+    private Path logFile() {
+        return dir.resolve("cache.log");
+    }
+
+    private AllRoutesCachePersistence open() {
+        AllRoutesCachePersistence persistence = new AllRoutesCachePersistence(file(), logFile(), DEBOUNCE);
+        persistence.load();
+        return persistence;
+    }
+
+    @Test
+    void testReplayKeepsTheLastEntryOfEveryKey() throws Exception {
+        AllRoutesCachePersistence persistence = open();
+
+        persistence.append("ESP->ITA@v1", entry(5, "ESP", "FRA", "ITA"));
+        persistence.append("AUT->CZE@v1", entry(5, "AUT", "CZE"));
+        persistence.append("ESP->ITA@v1", entry(10, "ESP", "FRA", "ITA"));
+        persistence.flush();
+
+        assertEquals(3, Files.readAllLines(logFile()).size());
+        assertFalse(Files.exists(file()));
+
+        AllRoutesCachePersistence reopened = open();
+        assertEquals(2, reopened.size());
+        assertEquals(10, reopened.lookup("ESP->ITA@v1").getMaxDepth());
+        assertEquals(List.of(List.of("AUT", "CZE")), reopened.lookup("AUT->CZE@v1").getRoutes());
+    }
+
+    @Test
+    void testTornLineIsSkipped() throws Exception {
+        AllRoutesCachePersistence persistence = open();
+        persistence.append("AUT->CZE@v1", entry(5, "AUT", "CZE"));
+        persistence.flush();
+
+        // A crash in the middle of the next append
+        Files.writeString(logFile(), "{\"key\":\"ESP->ITA@v1\",\"entry\":{\"maxDe", StandardOpenOption.APPEND);
+
+        AllRoutesCachePersistence reopened = open();
+        assertEquals(1, reopened.size());
+        assertEquals(5, reopened.lookup("AUT->CZE@v1").getMaxDepth());
+        assertNull(reopened.lookup("ESP->ITA@v1"));
+    }
+
+    @Test
+    void testAppendAfterATornLineIsKept() throws Exception {
+        AllRoutesCachePersistence persistence = open();
+        persistence.append("AUT->CZE@v1", entry(5, "AUT", "CZE"));
+        persistence.flush();
+        Files.writeString(logFile(), "{\"key\":\"ESP->ITA@v1\",\"entry\":{\"maxDe", StandardOpenOption.APPEND);
+
+        AllRoutesCachePersistence restarted = open();
+        restarted.append("FRA->DEU@v1", entry(7, "FRA", "DEU"));
+        restarted.flush();
+
+        AllRoutesCachePersistence reopened = open();
+        assertEquals(2, Files.readAllLines(logFile()).size());
+        assertEquals(5, reopened.lookup("AUT->CZE@v1").getMaxDepth());
+        assertEquals(7, reopened.lookup("FRA->DEU@v1").getMaxDepth());
+        assertNull(reopened.lookup("ESP->ITA@v1"));
+    }
+
+    @Test
+    void testCloseCompactsTheLogIntoTheFile() throws Exception {
+        AllRoutesCachePersistence persistence = open();
+        persistence.retain(key -> key.endsWith("@v1"));
+
+        for (int depth = 1; depth <= 5; depth++) {
+            persistence.append("ESP->ITA@v1", entry(depth, "ESP", "FRA", "ITA"));
+        }
+        persistence.append("AUT->CZE@v0", entry(5, "AUT", "CZE"));   // older graph version
+        persistence.close();
+
+        assertFalse(Files.exists(logFile()));
+        AllRoutesCachePersistence reopened = open();
+        assertEquals(1, reopened.size());
+        assertEquals(5, reopened.lookup("ESP->ITA@v1").getMaxDepth());
+        assertNull(reopened.lookup("AUT->CZE@v0"));
+
+        persistence.append("AUT->CZE@v1", entry(5, "AUT", "CZE"));   // ignored once closed
+        assertFalse(Files.exists(logFile()));
+    }
+
+    @Test
+    void testCompactionKeepsTheFileEntries() throws Exception {
+        AllRoutesCachePersistence first = open();
+        first.append("AUT->CZE@v1", entry(5, "AUT", "CZE"));
+        first.append("ESP->ITA@v1", entry(5, "ESP", "FRA", "ITA"));
+        first.close();
+
+        AllRoutesCachePersistence second = open();
+        second.append("ESP->ITA@v1", entry(8, "ESP", "FRA", "ITA"));
+        second.append("POL->DEU@v1", entry(5, "POL", "DEU"));
+        second.close();
+
+        AllRoutesCachePersistence reopened = open();
+        assertEquals(3, reopened.size());
+        assertEquals(List.of(List.of("AUT", "CZE")), reopened.lookup("AUT->CZE@v1").getRoutes());
+        assertEquals(8, reopened.lookup("ESP->ITA@v1").getMaxDepth());
+        assertEquals(List.of(List.of("POL", "DEU")), reopened.lookup("POL->DEU@v1").getRoutes());
+    }
+
+    @Test
+    void testWriterCompactsALongLog() throws Exception {
+        AllRoutesCachePersistence persistence = open();
+
+        int appends = AllRoutesCachePersistence.MIN_COMPACTION_LINES + 200;
+        for (int i = 0; i < appends; i++) {
+            persistence.append("K" + (i % 10), entry(i, "ESP", "FRA"));
+        }
+        persistence.flush();
+
+        assertTrue(Files.exists(file()), "log was never compacted");
+        assertTrue(!Files.exists(logFile()) || Files.readAllLines(logFile()).size() < appends);
+        assertEquals(appends - 1, open().lookup("K9").getMaxDepth());
+    }
+
+    private static AllRoutesCacheEntry entry(int maxDepth, String... route) {
+        return new AllRoutesCacheEntry(maxDepth, 100, List.of(List.of(route)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.ovidiu.countryrouting.routing;
 
 
+import com.ovidiu.countryrouting.graph.CompiledGraph;
 import com.ovidiu.countryrouting.graph.GraphBuilder;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,10 +9,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,13 +28,13 @@ class AllRoutesFinderTest {
 
     @Test
     void testMultipleRoutes() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B", "C"),
                         "B", List.of("D"),
                         "C", List.of("D"),
                         "D", List.of()
-                )
+                ))
         );
 
         List<List<String>> routes = allRoutesFinder.findAllRoutes("A", "D", 10, 10);
@@ -43,12 +46,12 @@ class AllRoutesFinderTest {
 
     @Test
     void testNoRoutes() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of(),
                         "C", List.of()
-                )
+                ))
         );
 
         List<List<String>> routes = allRoutesFinder.findAllRoutes("A", "C", 10, 10);
@@ -57,11 +60,11 @@ class AllRoutesFinderTest {
 
     @Test
     void testOriginEqualsDestination() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of()
-                )
+                ))
         );
 
         List<List<String>> routes = allRoutesFinder.findAllRoutes("A", "A", 10, 10);
@@ -72,11 +75,11 @@ class AllRoutesFinderTest {
 
     @Test
     void testUnknownCountry() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of()
-                )
+                ))
         );
 
         assertThrows(IllegalArgumentException.class,
@@ -85,12 +88,12 @@ class AllRoutesFinderTest {
 
     @Test
     void testGraphWithCycle() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of("C"),
                         "C", List.of("A") // cycle
-                )
+                ))
         );
 
         List<List<String>> routes = allRoutesFinder.findAllRoutes("A", "C", 10, 10);
@@ -101,13 +104,13 @@ class AllRoutesFinderTest {
 
     @Test
     void testIterativeMatchesRecursive() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B", "C"),
                         "B", List.of("D"),
                         "C", List.of("D"),
                         "D", List.of()
-                )
+                ))
         );
 
         List<List<String>> recursive = allRoutesFinder.findAllRoutes("A", "D", 10, 10);
@@ -120,12 +123,12 @@ class AllRoutesFinderTest {
 
     @Test
     void testIterativeHandlesCycles() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of("C"),
                         "C", List.of("A") // cycle
-                )
+                ))
         );
 
         List<List<String>> recursive = allRoutesFinder.findAllRoutes("A", "C", 10, 10);
@@ -136,12 +139,12 @@ class AllRoutesFinderTest {
 
     @Test
     void testIterativeNoRoutes() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of(),
                         "C", List.of()
-                )
+                ))
         );
 
         assertTrue(allRoutesFinder.findAllRoutesIterative("A", "C", 10, 10).isEmpty());
@@ -149,11 +152,11 @@ class AllRoutesFinderTest {
 
     @Test
     void testIterativeOriginEqualsDestination() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B"),
                         "B", List.of()
-                )
+                ))
         );
 
         List<List<String>> routes = allRoutesFinder.findAllRoutesIterative("A", "A", 10, 10);
@@ -162,10 +165,129 @@ class AllRoutesFinderTest {
         assertEquals(List.of("A"), routes.getFirst());
     }
 
+    @Test
+    void testBitsetMatchesRecursive() {
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
+                        "A", List.of("B", "C"),
+                        "B", List.of("D", "C"),
+                        "C", List.of("B", "D"),
+                        "D", List.of()
+                ))
+        );
+
+        assertEquals(
+                allRoutesFinder.findAllRoutes("A", "D", 10, 10),
+                allRoutesFinder.findAllRoutesBitset("A", "D", 10, 10)
+        );
+        assertEquals(
+                allRoutesFinder.findAllRoutes("A", "D", 3, 10),
+                allRoutesFinder.findAllRoutesBitset("A", "D", 3, 10)
+        );
+        assertEquals(
+                allRoutesFinder.findAllRoutes("A", "D", 10, 2),
+                allRoutesFinder.findAllRoutesBitset("A", "D", 10, 2)
+        );
+    }
+
+    @Test
+    void testBitsetEdgeCases() {
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
+                        "A", List.of("B"),
+                        "B", List.of("C"),
+                        "C", List.of("A") // cycle
+                ))
+        );
+
+        assertEquals(List.of(List.of("A", "B", "C")), allRoutesFinder.findAllRoutesBitset("A", "C", 10, 10));
+        assertEquals(List.of(List.of("A")), allRoutesFinder.findAllRoutesBitset("A", "A", 10, 10));
+        assertTrue(allRoutesFinder.findAllRoutesBitset("A", "C", 1, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> allRoutesFinder.findAllRoutesBitset("X", "C", 10, 10));
+    }
+
+    @Test
+    void testBitsetMatchesRecursiveOnBordersJson() {
+        when(graphBuilder.getGraph()).thenReturn(new GraphBuilder().getGraph());
+
+        for (String[] pair : new String[][]{{"CZE", "ITA"}, {"ESP", "FRA"}, {"PRT", "ROU"}, {"AUT", "NLD"}}) {
+            assertEquals(
+                    allRoutesFinder.findAllRoutes(pair[0], pair[1], 8, 500),
+                    allRoutesFinder.findAllRoutesBitset(pair[0], pair[1], 8, 500),
+                    pair[0] + "->" + pair[1]
+            );
+        }
+    }
+
+    @Test
+    void testMeetInTheMiddleMatchesRecursiveOnBordersJson() {
+        when(graphBuilder.getGraph()).thenReturn(new GraphBuilder().getGraph());
+
+        for (String[] pair : new String[][]{{"CZE", "ITA"}, {"PRT", "ROU"}, {"AUT", "NLD"}}) {
+            assertEquals(
+                    allRoutesFinder.findAllRoutes(pair[0], pair[1], 9, 300),
+                    allRoutesFinder.findAllRoutesMeetInTheMiddle(pair[0], pair[1], 9, 300),
+                    pair[0] + "->" + pair[1]
+            );
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> allRoutesFinder.findAllRoutesMeetInTheMiddle("XXX", "ITA", 9, 300));
+    }
+
+    @Test
+    void testStreamMatchesBitsetAndStopsEarly() {
+        when(graphBuilder.getGraph()).thenReturn(new GraphBuilder().getGraph());
+
+        RouteStream stream = allRoutesFinder.streamAllRoutes("PRT", "ROU", 8, 500);
+
+        List<List<String>> streamed = new ArrayList<>();
+        int delivered = stream.forEachRoute(streamed::add);
+        assertEquals(allRoutesFinder.findAllRoutesBitset("PRT", "ROU", 8, 500), streamed);
+        assertEquals(streamed.size(), delivered);
+
+        // A consumer that refuses the third route ends the search right there
+        List<List<String>> partial = new ArrayList<>();
+        assertEquals(3, stream.forEachRoute(route -> partial.add(route) && partial.size() < 3));
+        assertEquals(streamed.subList(0, 3), partial);
+    }
+
+    @Test
+    void testCountRoutesMatchesRecursive() {
+        when(graphBuilder.getGraph()).thenReturn(new GraphBuilder().getGraph());
+
+        long[] counts = allRoutesFinder.countRoutes("CZE", "ITA", 7);
+        long[] expected = new long[8];
+        allRoutesFinder.findAllRoutes("CZE", "ITA", 7, Integer.MAX_VALUE)
+                .forEach(route -> expected[route.size() - 1]++);
+
+        assertArrayEquals(expected, counts);
+        assertThrows(IllegalArgumentException.class, () -> allRoutesFinder.countRoutes("XXX", "ITA", 7));
+    }
+
+    @Test
+    void testCountRoutesRejectsDepthAboveTheCap() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> allRoutesFinder.countRoutes("FIN", "ESP", 19));
+
+        assertEquals("maxDepth must be at most 18 for route counts", ex.getMessage());
+        verifyNoInteractions(graphBuilder);
+    }
+
+    @Test
+    void testStreamValidatesBeforeSearching() {
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("A", List.of("B"), "B", List.of()))
+        );
+
+        assertThrows(IllegalArgumentException.class,
+                () -> allRoutesFinder.streamAllRoutes("X", "B", 10, 10));
+    }
+
     @Test
     void benchmarkRecursiveVsIterative() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of(
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of(
                         "A", List.of("B", "C"),
                         "B", List.of("D", "E"),
                         "C", List.of("F"),
@@ -173,7 +295,7 @@ class AllRoutesFinderTest {
                         "E", List.of("G"),
                         "F", List.of("G"),
                         "G", List.of()
-                )
+                ))
         );
 
         int iterations = 10_000;
@@ -183,6 +305,7 @@ class AllRoutesFinderTest {
         for (int i = 0; i < 1000; i++) {
             allRoutesFinder.findAllRoutes("A", "G", 10, 1000);
             allRoutesFinder.findAllRoutesIterative("A", "G", 10, 1000);
+            allRoutesFinder.findAllRoutesBitset("A", "G", 10, 1000);
         }
 
         // Recursive benchmark
@@ -201,7 +324,16 @@ class AllRoutesFinderTest {
         end = System.nanoTime();
         long iterativeTime = end - start;
 
+        // Bitset benchmark
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            allRoutesFinder.findAllRoutesBitset("A", "G", 10, 1000);
+        }
+        end = System.nanoTime();
+        long bitsetTime = end - start;
+
         System.out.println("Recursive DFS: " + recursiveTime / 1_000_000 + " ms");
         System.out.println("Iterative DFS: " + iterativeTime / 1_000_000 + " ms");
+        System.out.println("Bitset DFS: " + bitsetTime / 1_000_000 + " ms");
     }
 }
@@ -0,0 +1,102 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.graph.ShortestPathTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidirectionalBfsTest {
+
+    private static final CompiledGraph WORLD = new GraphBuilder().getGraph();
+
+    @Test
+    void testSmallGraph() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "CZE", List.of("AUT", "DEU"),
+                "AUT", List.of("CZE", "ITA"),
+                "DEU", List.of("CZE"),
+                "ITA", List.of("AUT"),
+                "AUS", List.of()
+        ));
+
+        assertEquals(List.of("CZE", "AUT", "ITA"), codes(graph, route(graph, "CZE", "ITA")));
+        assertEquals(List.of("CZE", "AUT"), codes(graph, route(graph, "CZE", "AUT")));
+        assertEquals(List.of("ITA"), codes(graph, route(graph, "ITA", "ITA")));
+        assertNull(route(graph, "CZE", "AUS"));
+    }
+
+    @Test
+    void testFollowsDirectedBorders() {
+        // LKA lists IND as a border, IND does not list LKA
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "LKA", List.of("IND"),
+                "IND", List.of("PAK"),
+                "PAK", List.of("IND")
+        ));
+
+        assertEquals(List.of("LKA", "IND", "PAK"), codes(graph, route(graph, "LKA", "PAK")));
+        assertNull(route(graph, "PAK", "LKA"));
+    }
+
+    @Test
+    void testShortestOnEveryPairOfBordersJson() {
+        ShortestPathTable table = WORLD.shortestPaths();
+
+        for (int origin = 0; origin < WORLD.size(); origin++) {
+            for (int destination = 0; destination < WORLD.size(); destination++) {
+                int[] route = BidirectionalBfs.route(WORLD, origin, destination, new SearchStats());
+
+                if (!table.isReachable(origin, destination)) {
+                    assertNull(route);
+                    continue;
+                }
+
+                assertEquals(table.distance(origin, destination) + 1, route.length);
+                assertEquals(origin, route[0]);
+                assertEquals(destination, route[route.length - 1]);
+                for (int i = 1; i < route.length; i++) {
+                    assertTrue(borders(route[i - 1], route[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    void benchmarkNodesExpandedVsBfs() {
+        for (String[] pair : new String[][]{{"PRT", "CHN"}, {"ZAF", "EGY"}, {"ESP", "VNM"}, {"FRA", "KOR"}}) {
+            int origin = WORLD.id(pair[0]);
+            int destination = WORLD.id(pair[1]);
+
+            SearchStats bfs = new SearchStats();
+            SearchStats bidirectional = new SearchStats();
+            int[] bfsRoute = BreadthFirstSearch.route(WORLD, origin, destination, bfs);
+            int[] biRoute = BidirectionalBfs.route(WORLD, origin, destination, bidirectional);
+
+            System.out.println(pair[0] + "->" + pair[1] + ": BFS expanded " + bfs.getNodesExpanded()
+                    + ", bidirectional expanded " + bidirectional.getNodesExpanded());
+
+            assertEquals(bfsRoute.length, biRoute.length);
+            assertTrue(bidirectional.getNodesExpanded() < bfs.getNodesExpanded());
+        }
+    }
+
+    private boolean borders(int from, int to) {
+        for (int e = WORLD.edgeStart(from); e < WORLD.edgeEnd(from); e++) {
+            if (WORLD.neighborAt(e) == to) return true;
+        }
+        return false;
+    }
+
+    private int[] route(CompiledGraph graph, String origin, String destination) {
+        return BidirectionalBfs.route(graph, graph.id(origin), graph.id(destination), new SearchStats());
+    }
+
+    private List<String> codes(CompiledGraph graph, int[] path) {
+        return graph.toCodes(path, path.length);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitsetRouteEnumeratorTest {
+
+    private static final CompiledGraph GRAPH = CompiledGraph.compile(Map.of(
+            "A", List.of("B", "C"),
+            "B", List.of("A", "C", "D"),
+            "C", List.of("A", "B", "D"),
+            "D", List.of("B", "C")
+    ));
+
+    @Test
+    void testEmitsInDfsOrderWithinMaxHops() {
+        List<List<String>> routes = collect(new BitsetRouteEnumerator(GRAPH), "A", "D", 3, 10);
+
+        assertEquals(List.of(
+                List.of("A", "B", "C", "D"),
+                List.of("A", "B", "D"),
+                List.of("A", "C", "B", "D"),
+                List.of("A", "C", "D")
+        ), routes);
+
+        assertEquals(List.of(List.of("A", "B", "D"), List.of("A", "C", "D")),
+                collect(new BitsetRouteEnumerator(GRAPH), "A", "D", 2, 10));
+    }
+
+    @Test
+    void testSinkCanStopTheSearch() {
+        List<List<String>> routes = new ArrayList<>();
+        int emitted = new BitsetRouteEnumerator(GRAPH).enumerate(
+                GRAPH.id("A"), GRAPH.id("D"), 3, 10,
+                (path, length) -> {
+                    routes.add(GRAPH.toCodes(path, length));
+                    return false;
+                });
+
+        assertEquals(1, emitted);
+        assertEquals(List.of(List.of("A", "B", "C", "D")), routes);
+    }
+
+    @Test
+    void testInstanceIsReusable() {
+        BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(GRAPH);
+
+        assertEquals(2, collect(enumerator, "A", "D", 3, 2).size());
+        assertEquals(4, collect(enumerator, "A", "D", 3, 10).size());
+        assertEquals(4, collect(enumerator, "D", "A", 3, 10).size());
+    }
+
+    @Test
+    void testLimits() {
+        BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(GRAPH);
+
+        assertTrue(collect(enumerator, "A", "D", -1, 10).isEmpty());
+        assertTrue(collect(enumerator, "A", "D", 3, 0).isEmpty());
+        assertEquals(List.of(List.of("A")), collect(enumerator, "A", "A", 0, 10));
+    }
+
+    @Test
+    void testPruningKeepsRoutesAndExpandsFewerNodes() {
+        CompiledGraph world = new GraphBuilder().getGraph();
+
+        for (String[] pair : new String[][]{{"PRT", "ROU"}, {"ESP", "FRA"}, {"NOR", "GRC"}, {"FIN", "ESP"}}) {
+            int origin = world.id(pair[0]);
+            int destination = world.id(pair[1]);
+
+            BitsetRouteEnumerator pruned = new BitsetRouteEnumerator(world, true);
+            BitsetRouteEnumerator unpruned = new BitsetRouteEnumerator(world, false);
+            List<List<String>> expected = new ArrayList<>();
+            List<List<String>> actual = new ArrayList<>();
+
+            unpruned.enumerate(origin, destination, 10, 1000,
+                    (path, length) -> expected.add(world.toCodes(path, length)));
+            pruned.enumerate(origin, destination, 10, 1000,
+                    (path, length) -> actual.add(world.toCodes(path, length)));
+
+            System.out.println(pair[0] + "->" + pair[1] + ": unpruned expanded " + unpruned.nodesExpanded()
+                    + ", pruned expanded " + pruned.nodesExpanded());
+
+            assertEquals(expected, actual);
+            assertTrue(pruned.nodesExpanded() < unpruned.nodesExpanded());
+        }
+    }
+
+    @Test
+    void testPruningSkipsUnreachableDestination() {
+        CompiledGraph world = new GraphBuilder().getGraph();
+        BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(world);
+
+        assertEquals(0, enumerator.enumerate(world.id("ESP"), world.id("AUS"), 10, 10, (path, length) -> true));
+        assertEquals(0, enumerator.nodesExpanded());
+    }
+
+    private List<List<String>> collect(BitsetRouteEnumerator enumerator,
+                                       String origin, String destination, int maxHops, int maxRoutes) {
+        List<List<String>> routes = new ArrayList<>();
+        enumerator.enumerate(GRAPH.id(origin), GRAPH.id(destination), maxHops, maxRoutes,
+                (path, length) -> routes.add(GRAPH.toCodes(path, length)));
+        return routes;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreadthFirstSearchTest {
+
+    @Test
+    void testRoute() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "CZE", List.of("AUT", "DEU"),
+                "AUT", List.of("CZE", "ITA"),
+                "DEU", List.of("CZE"),
+                "ITA", List.of("AUT"),
+                "AUS", List.of()
+        ));
+
+        SearchStats stats = new SearchStats();
+        int[] route = BreadthFirstSearch.route(graph, graph.id("CZE"), graph.id("ITA"), stats);
+
+        assertEquals(List.of("CZE", "AUT", "ITA"), graph.toCodes(route, route.length));
+        assertEquals(2, stats.getNodesExpanded());
+        assertNull(BreadthFirstSearch.route(graph, graph.id("CZE"), graph.id("AUS"), new SearchStats()));
+    }
+
+    @Test
+    void testTreeWalkMatchesRouteOnBordersJson() {
+        CompiledGraph graph = new GraphBuilder().getGraph();
+
+        for (int origin = 0; origin < graph.size(); origin++) {
+            int[] tree = BreadthFirstSearch.tree(graph, origin);
+            for (int destination = 0; destination < graph.size(); destination++) {
+                assertArrayEquals(
+                        BreadthFirstSearch.route(graph, origin, destination, new SearchStats()),
+                        BreadthFirstSearch.walkTree(tree, destination)
+                );
+            }
+        }
+    }
+
+    @Test
+    void testCrossComponentPairIsNotSearched() {
+        CompiledGraph graph = new GraphBuilder().getGraph();
+        SearchStats bfs = new SearchStats();
+        SearchStats bidirectional = new SearchStats();
+
+        assertNull(BreadthFirstSearch.route(graph, graph.id("ESP"), graph.id("AUS"), bfs));
+        assertNull(BidirectionalBfs.route(graph, graph.id("ESP"), graph.id("AUS"), bidirectional));
+        assertEquals(0, bfs.getNodesExpanded());
+        assertEquals(0, bidirectional.getNodesExpanded());
+    }
+
+    @Test
+    void testDistancesFollowBorderDirection() {
+        // LKA lists IND as a border, IND does not list LKA
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "LKA", List.of("IND"),
+                "IND", List.of("PAK"),
+                "PAK", List.of("IND")
+        ));
+
+        int[] toPak = BreadthFirstSearch.reverseDistances(graph, graph.id("PAK"));
+        assertEquals(2, toPak[graph.id("LKA")]);
+        assertEquals(1, toPak[graph.id("IND")]);
+        assertEquals(0, toPak[graph.id("PAK")]);
+        assertEquals(-1, BreadthFirstSearch.reverseDistances(graph, graph.id("LKA"))[graph.id("IND")]);
+    }
+
+    @Test
+    void testReverseDistancesMatchTableOnBordersJson() {
+        CompiledGraph graph = new GraphBuilder().getGraph();
+
+        for (int destination = 0; destination < graph.size(); destination++) {
+            assertArrayEquals(
+                    BreadthFirstSearch.distancesTo(graph, destination),
+                    BreadthFirstSearch.reverseDistances(graph, destination),
+                    graph.code(destination)
+            );
+        }
+    }
+}
@@ -21,10 +21,12 @@ class DfsBenchmarkTest {
         // Warm-up (JIT stabilization)
         finder.findAllRoutes(origin, destination, 10, 1000);
         finder.findAllRoutesIterative(origin, destination, 10, 1000);
+        finder.findAllRoutesBitset(origin, destination, 10, 1000);
 
         // Actual benchmark (AOP logs the times)
         finder.findAllRoutes(origin, destination, 10, 1000);
         finder.findAllRoutesIterative(origin, destination, 10, 1000);
+        finder.findAllRoutesBitset(origin, destination, 10, 1000);
     }
 
     static Stream<Arguments> countryPairs() {
@@ -0,0 +1,130 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeetInTheMiddleEnumeratorTest {
+
+    private static final CompiledGraph WORLD = new GraphBuilder().getGraph();
+
+    @Test
+    void testSmallGraph() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "A", List.of("B", "C"),
+                "B", List.of("A", "C", "D"),
+                "C", List.of("A", "B", "D"),
+                "D", List.of("B", "C")
+        ));
+
+        assertEquals(List.of(
+                List.of("A", "B", "C", "D"),
+                List.of("A", "B", "D"),
+                List.of("A", "C", "B", "D"),
+                List.of("A", "C", "D")
+        ), meet(graph, "A", "D", 3, 10));
+        assertEquals(List.of(List.of("A")), meet(graph, "A", "A", 0, 10));
+        assertTrue(meet(graph, "A", "D", 1, 10).isEmpty());
+        assertTrue(meet(graph, "A", "D", -1, 10).isEmpty());
+        assertTrue(meet(graph, "A", "D", 3, 0).isEmpty());
+    }
+
+    @Test
+    void testMatchesBitsetOnBordersJson() {
+        String[][] pairs = {{"CZE", "ITA"}, {"ESP", "FRA"}, {"PRT", "ROU"}, {"NOR", "GRC"},
+                {"FIN", "ESP"}, {"LKA", "CHN"}, {"IND", "LKA"}, {"ESP", "AUS"}, {"ZAF", "EGY"}};
+
+        for (String[] pair : pairs) {
+            for (int maxHops = 0; maxHops <= 11; maxHops++) {
+                for (int maxRoutes : new int[]{1, 7, 1000}) {
+                    assertEquals(
+                            bitset(WORLD, pair[0], pair[1], maxHops, maxRoutes),
+                            meet(WORLD, pair[0], pair[1], maxHops, maxRoutes),
+                            pair[0] + "->" + pair[1] + " maxHops=" + maxHops + " maxRoutes=" + maxRoutes
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMatchesBitsetOnRandomDirectedGraphs() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            int size = 3 + random.nextInt(10);
+            Map<String, List<String>> adjacency = new HashMap<>();
+            for (int node = 0; node < size; node++) {
+                List<String> borders = new ArrayList<>();
+                for (int other = 0; other < size; other++) {
+                    if (other != node && random.nextInt(3) == 0) borders.add("N" + other);
+                }
+                // Mixed border orders, so ranks differ from id order
+                Collections.shuffle(borders, random);
+                adjacency.put("N" + node, borders);
+            }
+            CompiledGraph graph = CompiledGraph.compile(adjacency);
+
+            String origin = "N" + random.nextInt(size);
+            String destination = "N" + random.nextInt(size);
+            int maxHops = random.nextInt(size + 1);
+            int maxRoutes = 1 + random.nextInt(50);
+
+            assertEquals(
+                    bitset(graph, origin, destination, maxHops, maxRoutes),
+                    meet(graph, origin, destination, maxHops, maxRoutes),
+                    "round " + round + ": " + adjacency + " " + origin + "->" + destination + " maxHops=" + maxHops
+            );
+        }
+    }
+
+    @Test
+    void benchmarkDeepQueries() {
+        for (String[] pair : new String[][]{{"PRT", "ROU"}, {"FIN", "ESP"}, {"NOR", "GRC"}}) {
+            int origin = WORLD.id(pair[0]);
+            int destination = WORLD.id(pair[1]);
+
+            BitsetRouteEnumerator bitset = new BitsetRouteEnumerator(WORLD);
+            MeetInTheMiddleEnumerator meet = new MeetInTheMiddleEnumerator(WORLD);
+
+            long start = System.nanoTime();
+            int dfsRoutes = bitset.enumerate(origin, destination, 15, 100_000, (path, length) -> true);
+            long dfsMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            int meetRoutes = meet.enumerate(origin, destination, 15, 100_000, (path, length) -> true);
+            long meetMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println(pair[0] + "->" + pair[1] + " maxDepth=15: DFS expanded " + bitset.nodesExpanded()
+                    + " in " + dfsMs + " ms, meet-in-the-middle expanded " + meet.nodesExpanded()
+                    + " (+" + meet.joinsChecked() + " joins) in " + meetMs + " ms, " + meetRoutes + " routes");
+
+            assertEquals(dfsRoutes, meetRoutes);
+        }
+    }
+
+    private static List<List<String>> meet(CompiledGraph graph, String origin, String destination,
+                                           int maxHops, int maxRoutes) {
+        List<List<String>> routes = new ArrayList<>();
+        new MeetInTheMiddleEnumerator(graph).enumerate(graph.id(origin), graph.id(destination), maxHops, maxRoutes,
+                (path, length) -> routes.add(graph.toCodes(path, length)));
+        return routes;
+    }
+
+    private static List<List<String>> bitset(CompiledGraph graph, String origin, String destination,
+                                             int maxHops, int maxRoutes) {
+        List<List<String>> routes = new ArrayList<>();
+        new BitsetRouteEnumerator(graph, false).enumerate(graph.id(origin), graph.id(destination), maxHops, maxRoutes,
+                (path, length) -> routes.add(graph.toCodes(path, length)));
+        return routes;
+    }
+}
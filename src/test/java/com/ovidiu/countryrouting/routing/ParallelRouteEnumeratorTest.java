@@ -0,0 +1,111 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelRouteEnumeratorTest {
+
+    private static final CompiledGraph EUROPE = new GraphBuilder().getGraph();
+
+    @Test
+    void testMatchesSequentialOnLargeQueries() {
+        ParallelRouteEnumerator parallel = new ParallelRouteEnumerator(EUROPE, ParallelRouteEnumerator.sharedPool());
+
+        for (String[] pair : new String[][]{{"AUT", "NLD"}, {"CZE", "ITA"}, {"FIN", "ESP"}}) {
+            int origin = EUROPE.id(pair[0]);
+            int destination = EUROPE.id(pair[1]);
+
+            for (int maxRoutes : new int[]{1, 37, 1000}) {
+                assertEquals(
+                        sequential(EUROPE, origin, destination, 10, maxRoutes),
+                        asLists(parallel.enumerate(origin, destination, 10, maxRoutes)),
+                        pair[0] + "->" + pair[1] + " maxRoutes=" + maxRoutes
+                );
+            }
+        }
+    }
+
+    @Test
+    void testOutputIsStableBetweenRuns() {
+        ParallelRouteEnumerator parallel = new ParallelRouteEnumerator(EUROPE, new ForkJoinPool(4));
+        int origin = EUROPE.id("CZE");
+        int destination = EUROPE.id("ITA");
+
+        List<List<Integer>> first = asLists(parallel.enumerate(origin, destination, 10, 500));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(first, asLists(parallel.enumerate(origin, destination, 10, 500)));
+        }
+    }
+
+    @Test
+    void testSplitKeepsShallowRoutesInOrder() {
+        // with a single worker thread the frontier is split two levels deep
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "A", List.of("D", "B", "C"),
+                "B", List.of("A", "C", "D"),
+                "C", List.of("A", "B", "D"),
+                "D", List.of("B", "C")
+        ));
+        ParallelRouteEnumerator parallel = new ParallelRouteEnumerator(graph, new ForkJoinPool(1));
+
+        for (int maxHops = 0; maxHops <= 3; maxHops++) {
+            assertEquals(
+                    sequential(graph, graph.id("A"), graph.id("D"), maxHops, 10),
+                    asLists(parallel.enumerate(graph.id("A"), graph.id("D"), maxHops, 10)),
+                    "maxHops=" + maxHops
+            );
+        }
+    }
+
+    @Test
+    void testWorkCountersSumOverTasks() {
+        int origin = EUROPE.id("CZE");
+        int destination = EUROPE.id("ITA");
+        BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(EUROPE);
+        enumerator.enumerate(origin, destination, 8, Integer.MAX_VALUE, (path, length) -> true);
+
+        SharedSearchStats stats = new SharedSearchStats();
+        new ParallelRouteEnumerator(EUROPE, new ForkJoinPool(4)).enumerate(origin, destination, 8, Integer.MAX_VALUE, stats);
+
+        // Subtrees expand what the sequential search does; the split levels are not pruned
+        assertTrue(stats.getNodesExpanded() >= enumerator.nodesExpanded());
+        assertEquals(enumerator.depthReached(), stats.getDepthReached());
+    }
+
+    @Test
+    void testThresholdSelectsEngine() {
+        int origin = EUROPE.id("AUT");
+
+        assertEquals(0, ParallelRouteEnumerator.estimateSearchSize(EUROPE, origin, 0));
+        assertTrue(ParallelRouteEnumerator.estimateSearchSize(EUROPE, origin, 10)
+                > ParallelRouteEnumerator.estimateSearchSize(EUROPE, origin, 5));
+
+        List<int[]> alwaysParallel = ParallelRouteEnumerator.findRoutes(
+                EUROPE, origin, EUROPE.id("NLD"), 8, 100, 0);
+        List<int[]> neverParallel = ParallelRouteEnumerator.findRoutes(
+                EUROPE, origin, EUROPE.id("NLD"), 8, 100, Double.MAX_VALUE);
+
+        assertEquals(asLists(neverParallel), asLists(alwaysParallel));
+    }
+
+    private List<List<Integer>> sequential(CompiledGraph graph, int origin, int destination,
+                                           int maxHops, int maxRoutes) {
+        List<int[]> routes = new ArrayList<>();
+        new BitsetRouteEnumerator(graph).enumerate(origin, destination, maxHops, maxRoutes,
+                (path, length) -> routes.add(Arrays.copyOf(path, length)));
+        return asLists(routes);
+    }
+
+    private List<List<Integer>> asLists(List<int[]> routes) {
+        return routes.stream().map(route -> Arrays.stream(route).boxed().toList()).toList();
+    }
+}
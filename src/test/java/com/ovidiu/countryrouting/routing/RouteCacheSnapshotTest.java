@@ -0,0 +1,139 @@
+package com.ovidiu.countryrouting.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCacheSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Map<String, AllRoutesCacheEntry> entries = new HashMap<>();
+        entries.put("ESP->ITA@v1", new AllRoutesCacheEntry(10, 50, List.of(
+                List.of("ESP", "FRA", "ITA"),
+                List.of("ESP", "FRA", "CHE", "ITA"))));
+        entries.put("AUT->AUT@v1", new AllRoutesCacheEntry(3, 1, List.of(List.of("AUT"))));
+        entries.put("ISL->ESP@v1", new AllRoutesCacheEntry(3, 1, List.of()));
+
+        Path file = dir.resolve("cache.bin");
+        assertEquals(3, RouteCacheSnapshot.write(file, RouteCacheSnapshot.EMPTY, entries, key -> true));
+        RouteCacheSnapshot snapshot = RouteCacheSnapshot.open(file);
+
+        assertEquals(3, snapshot.size());
+        entries.forEach((key, entry) -> {
+            AllRoutesCacheEntry decoded = snapshot.get(key);
+            assertEquals(entry.getMaxDepth(), decoded.getMaxDepth());
+            assertEquals(entry.getMaxRoutes(), decoded.getMaxRoutes());
+            assertEquals(entry.getRoutes(), decoded.getRoutes());
+        });
+        assertNull(snapshot.get("ESP->ITA@v2"));
+        assertNull(snapshot.get(""));
+    }
+
+    @Test
+    void testFindsEveryKeyAmongMany() throws IOException {
+        Map<String, AllRoutesCacheEntry> entries = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            entries.put("K" + i + "@v1", new AllRoutesCacheEntry(i, i, List.of(List.of("C" + (i % 40)))));
+        }
+
+        Path file = dir.resolve("cache.bin");
+        RouteCacheSnapshot.write(file, RouteCacheSnapshot.EMPTY, entries, key -> true);
+        RouteCacheSnapshot snapshot = RouteCacheSnapshot.open(file);
+
+        for (int i = 0; i < 500; i++) {
+            AllRoutesCacheEntry decoded = snapshot.get("K" + i + "@v1");
+            assertEquals(i, decoded.getMaxDepth());
+            assertEquals(List.of(List.of("C" + (i % 40))), decoded.getRoutes());
+        }
+        assertNull(snapshot.get("K500@v1"));
+    }
+
+    @Test
+    void testRewriteCopiesPreviousEntriesAndExtendsTheDictionary() throws IOException {
+        Path first = dir.resolve("first.bin");
+        RouteCacheSnapshot.write(first, RouteCacheSnapshot.EMPTY, Map.of(
+                "ESP->ITA@v1", new AllRoutesCacheEntry(10, 50, List.of(List.of("ESP", "FRA", "ITA"))),
+                "AUT->CZE@v0", new AllRoutesCacheEntry(10, 50, List.of(List.of("AUT", "CZE")))), key -> true);
+
+        Path second = dir.resolve("second.bin");
+        int written = RouteCacheSnapshot.write(second, RouteCacheSnapshot.open(first), Map.of(
+                "POL->DEU@v1", new AllRoutesCacheEntry(4, 5, List.of(List.of("POL", "DEU"))),
+                "ESP->ITA@v1", new AllRoutesCacheEntry(12, 50, List.of(List.of("ESP", "FRA", "ITA")))),
+                key -> key.endsWith("@v1"));
+        RouteCacheSnapshot snapshot = RouteCacheSnapshot.open(second);
+
+        assertEquals(2, written);
+        assertEquals(12, snapshot.get("ESP->ITA@v1").getMaxDepth());
+        assertEquals(List.of(List.of("POL", "DEU")), snapshot.get("POL->DEU@v1").getRoutes());
+        assertNull(snapshot.get("AUT->CZE@v0"));
+    }
+
+    @Test
+    void testMoreCountriesThanOneByteIdsFails() {
+        List<List<String>> routes = new ArrayList<>();
+        for (int i = 0; i <= RouteCacheSnapshot.MAX_COUNTRIES; i++) {
+            routes.add(List.of("C" + i));
+        }
+
+        Path file = dir.resolve("cache.bin");
+        assertThrows(IOException.class, () -> RouteCacheSnapshot.write(file, RouteCacheSnapshot.EMPTY,
+                Map.of("K", new AllRoutesCacheEntry(1, routes.size(), routes)), key -> true));
+    }
+
+    @Test
+    void testOpen() throws IOException {
+        assertSame(RouteCacheSnapshot.EMPTY, RouteCacheSnapshot.open(dir.resolve("missing.bin")));
+
+        Path json = dir.resolve("cache.json");
+        Files.writeString(json, "{\"ESP->ITA@v1\": {\"maxDepth\": 10}}");
+        assertThrows(IOException.class, () -> RouteCacheSnapshot.open(json));
+    }
+
+    @Test
+    void testOpenRejectsOffsetsPastTheFile() throws IOException {
+        Path file = dir.resolve("cache.bin");
+        RouteCacheSnapshot.write(file, RouteCacheSnapshot.EMPTY,
+                Map.of("ESP->ITA@v1", new AllRoutesCacheEntry(10, 100, List.of(List.of("ESP", "FRA", "ITA")))),
+                key -> true);
+
+        byte[] written = Files.readAllBytes(file);
+        int dictionaryOffset = ByteBuffer.wrap(written).getInt(20);
+
+        // Dictionary offset past the end
+        byte[] corrupt = written.clone();
+        ByteBuffer.wrap(corrupt).putInt(20, written.length + 100);
+        Files.write(file, corrupt);
+        assertThrows(IOException.class, () -> RouteCacheSnapshot.open(file));
+
+        // Header intact, dictionary cut short in its first country code
+        Files.write(file, Arrays.copyOf(written, dictionaryOffset + 4));
+        assertThrows(IOException.class, () -> RouteCacheSnapshot.open(file));
+    }
+
+    @Test
+    void testOffsetsPastTwoGibFailTheWrite() throws IOException {
+        DataOutputStream full = new DataOutputStream(OutputStream.nullOutputStream()) {
+            {
+                written = Integer.MAX_VALUE;
+            }
+        };
+        DataOutputStream small = new DataOutputStream(OutputStream.nullOutputStream());
+        small.write(new byte[42]);
+
+        assertThrows(IOException.class, () -> RouteCacheSnapshot.offset(full));
+        assertEquals(42, RouteCacheSnapshot.offset(small));
+    }
+}
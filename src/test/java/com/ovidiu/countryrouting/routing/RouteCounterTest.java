@@ -0,0 +1,82 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCounterTest {
+
+    private static final CompiledGraph WORLD = new GraphBuilder().getGraph();
+
+    @Test
+    void testCountsPerLength() {
+        CompiledGraph graph = CompiledGraph.compile(Map.of(
+                "A", List.of("B", "C"),
+                "B", List.of("A", "C", "D"),
+                "C", List.of("A", "B", "D"),
+                "D", List.of("B", "C")
+        ));
+
+        // A-B-D, A-C-D, A-B-C-D, A-C-B-D
+        assertArrayEquals(new long[]{0, 0, 2, 2}, RouteCounter.count(graph, graph.id("A"), graph.id("D"), 3, false));
+        assertArrayEquals(new long[]{0, 0, 2}, RouteCounter.count(graph, graph.id("A"), graph.id("D"), 2, true));
+        assertArrayEquals(new long[]{1, 0}, RouteCounter.count(graph, graph.id("A"), graph.id("A"), 1, false));
+        assertArrayEquals(new long[0], RouteCounter.count(graph, graph.id("A"), graph.id("D"), -1, false));
+    }
+
+    @Test
+    void testMatchesEnumerationOnBordersJson() {
+        for (String[] pair : new String[][]{{"PRT", "ROU"}, {"CZE", "ITA"}, {"NOR", "GRC"}, {"ESP", "AUS"}}) {
+            int origin = WORLD.id(pair[0]);
+            int destination = WORLD.id(pair[1]);
+
+            long[] expected = new long[9];
+            new BitsetRouteEnumerator(WORLD).enumerate(origin, destination, 8, Integer.MAX_VALUE,
+                    (path, length) -> {
+                        expected[length - 1]++;
+                        return true;
+                    });
+
+            assertArrayEquals(expected, RouteCounter.count(WORLD, origin, destination, 8, false), pair[0] + "->" + pair[1]);
+            assertArrayEquals(expected, RouteCounter.count(WORLD, origin, destination, 8, true), pair[0] + "->" + pair[1]);
+        }
+    }
+
+    @Test
+    void testWorkCountersMatchTheEnumerator() {
+        int origin = WORLD.id("CZE");
+        int destination = WORLD.id("ITA");
+
+        BitsetRouteEnumerator enumerator = new BitsetRouteEnumerator(WORLD);
+        enumerator.enumerate(origin, destination, 8, Integer.MAX_VALUE, (path, length) -> true);
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            SharedSearchStats stats = new SharedSearchStats();
+            RouteCounter.count(WORLD, origin, destination, 8, parallel, stats);
+
+            assertEquals(enumerator.nodesExpanded(), stats.getNodesExpanded(), "parallel=" + parallel);
+            assertEquals(enumerator.depthReached(), stats.getDepthReached(), "parallel=" + parallel);
+        }
+    }
+
+    @Test
+    void benchmarkDeepCount() {
+        int origin = WORLD.id("FIN");
+        int destination = WORLD.id("ESP");
+
+        long start = System.nanoTime();
+        long[] counts = RouteCounter.count(WORLD, origin, destination, 14, true);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long total = 0;
+        for (long count : counts) total += count;
+        System.out.println("FIN->ESP within 14 crossings: " + total + " routes counted in " + elapsedMs + " ms");
+
+        assertTrue(total > 0);
+    }
+}
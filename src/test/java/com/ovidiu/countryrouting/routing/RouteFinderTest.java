@@ -2,17 +2,27 @@ package com.ovidiu.countryrouting.routing;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.ovidiu.countryrouting.fuzzymatching.CountryCodeResolver;
+import com.ovidiu.countryrouting.graph.CompiledGraph;
 import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.graph.GraphReloadedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,11 +42,19 @@ class RouteFinderTest {
     @Mock
     private AllRoutesCachePersistence persistence;
 
-    @InjectMocks
     private RouteFinder finder;
 
+    private static final CompiledGraph ESP_FRA_ITA = CompiledGraph.compile(
+            Map.of("ESP", List.of("FRA"), "FRA", List.of("ITA"), "ITA", List.of())
+    );
+
+    private static final CompiledGraph ESP_FRA_USA = CompiledGraph.compile(
+            Map.of("ESP", List.of("FRA"), "FRA", List.of(), "USA", List.of())
+    );
+
     @BeforeEach
     void setup() {
+        finder = new RouteFinder(graphBuilder, resolver);
         ReflectionTestUtils.setField(finder, "allRoutesCache", allRoutesCache);
         ReflectionTestUtils.setField(finder, "persistence", persistence);
     }
@@ -44,8 +62,8 @@ class RouteFinderTest {
     // STRICT ROUTING TESTS
     @Test
     void testCzeToIta() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("CZE", List.of("AUT"), "AUT", List.of("ITA"), "ITA", List.of())
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("CZE", List.of("AUT"), "AUT", List.of("ITA"), "ITA", List.of()))
         );
 
         List<String> route = finder.findShortestRoute("CZE", "ITA");
@@ -54,8 +72,8 @@ class RouteFinderTest {
 
     @Test
     void testFraToEsp() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("FRA", List.of("ESP"), "ESP", List.of())
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("FRA", List.of("ESP"), "ESP", List.of()))
         );
 
         List<String> route = finder.findShortestRoute("FRA", "ESP");
@@ -64,8 +82,8 @@ class RouteFinderTest {
 
     @Test
     void testUsaToCan() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("USA", List.of("CAN"), "CAN", List.of())
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("USA", List.of("CAN"), "CAN", List.of()))
         );
 
         List<String> route = finder.findShortestRoute("USA", "CAN");
@@ -74,21 +92,160 @@ class RouteFinderTest {
 
     @Test
     void testNoRoute() {
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("USA", List.of("MEX"), "MEX", List.of(), "AUS", List.of())
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("USA", List.of("MEX"), "MEX", List.of(), "AUS", List.of()))
         );
 
         assertNull(finder.findShortestRoute("USA", "AUS"));
     }
 
+    @Test
+    void testBfsEngine() {
+        ReflectionTestUtils.setField(finder, "shortestPathEngine", ShortestPathEngine.BFS);
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("CZE", List.of("AUT"), "AUT", List.of("ITA"), "ITA", List.of()))
+        );
+
+        assertEquals(List.of("CZE", "AUT", "ITA"), finder.findShortestRoute("CZE", "ITA"));
+        assertEquals(List.of("CZE", "AUT", "ITA"), finder.findShortestRoute("CZE", "ITA"));
+        assertThrows(IllegalArgumentException.class, () -> finder.findShortestRoute("XXX", "ITA"));
+    }
+
+    @Test
+    void testTreeEngineCachesOneTreePerOrigin() {
+        ReflectionTestUtils.setField(finder, "shortestPathEngine", ShortestPathEngine.TREE);
+        when(resolver.resolve("SPN")).thenReturn("ESP");
+        when(resolver.resolve("ITL")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
+        assertEquals(List.of("ESP", "FRA", "ITA"), finder.findShortestRoute("ESP", "ITA"));
+        assertEquals(List.of("ESP", "FRA"), finder.findShortestRoute("ESP", "FRA"));
+        assertEquals(List.of("ESP", "FRA", "ITA"), finder.findShortestRouteFuzzy("SPN", "ITL"));
+        // Unreachable answers come from the same cached tree
+        assertNull(finder.findShortestRoute("ITA", "ESP"));
+
+        ShortestPathTrees trees = (ShortestPathTrees) ReflectionTestUtils.getField(finder, "shortestPathTrees");
+        assertEquals(2, trees.size());
+    }
+
+    @Test
+    void testTreeCacheDropsOldSnapshotsOnReload() {
+        ReflectionTestUtils.setField(finder, "shortestPathEngine", ShortestPathEngine.TREE);
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+        when(allRoutesCache.asMap()).thenReturn(new ConcurrentHashMap<>());
+        finder.findShortestRoute("ESP", "ITA");
+
+        finder.onGraphReloaded(new GraphReloadedEvent(ESP_FRA_ITA, ESP_FRA_USA));
+
+        ShortestPathTrees trees = (ShortestPathTrees) ReflectionTestUtils.getField(finder, "shortestPathTrees");
+        assertEquals(0, trees.size());
+    }
+
+    @Test
+    void testBidirectionalEngine() {
+        ReflectionTestUtils.setField(finder, "shortestPathEngine", ShortestPathEngine.BIDIRECTIONAL);
+        when(resolver.resolve("SPN")).thenReturn("ESP");
+        when(resolver.resolve("ITL")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("ESP", List.of("FRA"), "FRA", List.of("ITA"), "ITA", List.of()))
+        );
+
+        assertEquals(List.of("ESP", "FRA", "ITA"), finder.findShortestRoute("ESP", "ITA"));
+        assertEquals(List.of("ESP", "FRA", "ITA"), finder.findShortestRouteFuzzy("SPN", "ITL"));
+        assertNull(finder.findShortestRoute("ITA", "ESP"));
+    }
+
+    @Test
+    void testBatchKeepsInputOrderAndReportsErrorsPerPair() {
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_USA);
+        when(resolver.resolveAll(any())).thenReturn(new HashMap<>(Map.of(
+                "SPN", "ESP", "FRA", "FRA", "USA", "USA", "ATL", "ATL"
+        )));
+
+        List<BatchRouteResult> results = finder.findShortestRoutesFuzzy(Arrays.asList(
+                new RoutePair("SPN", "FRA"),
+                new RoutePair("XXXX", "FRA"),
+                new RoutePair("SPN", "USA"),
+                new RoutePair("FRA", "ATL"),
+                null,
+                new RoutePair("SPN", "SPN")
+        ));
+
+        assertEquals(6, results.size());
+        assertEquals(List.of("ESP", "FRA"), results.get(0).route());
+        assertEquals("Unknown or invalid country name/code", results.get(1).error());
+        assertEquals("No land route found", results.get(2).error());
+        assertEquals("SPN", results.get(2).origin());
+        assertEquals("Resolved country not found in graph", results.get(3).error());
+        assertEquals("Unknown or invalid country name/code", results.get(4).error());
+        assertEquals(List.of("ESP"), results.get(5).route());
+        verify(resolver).resolveAll(any());
+        verify(resolver, never()).resolve(any());
+    }
+
+    @Test
+    void testBatchMatchesSinglePairsWithEveryEngine() {
+        CompiledGraph world = new GraphBuilder().getGraph();
+        when(graphBuilder.getGraph()).thenReturn(world);
+
+        List<RoutePair> pairs = new ArrayList<>();
+        Map<String, String> identity = new HashMap<>();
+        for (int origin = 0; origin < world.size(); origin += 7) {
+            for (int destination = 0; destination < world.size(); destination += 5) {
+                pairs.add(new RoutePair(world.code(origin), world.code(destination)));
+                identity.put(world.code(origin), world.code(origin));
+                identity.put(world.code(destination), world.code(destination));
+            }
+        }
+        when(resolver.resolveAll(any())).thenReturn(identity);
+
+        for (ShortestPathEngine engine : ShortestPathEngine.values()) {
+            ReflectionTestUtils.setField(finder, "shortestPathEngine", engine);
+            List<BatchRouteResult> results = finder.findShortestRoutesFuzzy(pairs);
+
+            for (int i = 0; i < pairs.size(); i++) {
+                List<String> single = finder.findShortestRoute(pairs.get(i).origin(), pairs.get(i).destination());
+
+                if (engine == ShortestPathEngine.BIDIRECTIONAL) {
+                    // Meets in the middle, so ties between equally short routes may break differently
+                    assertEquals(single == null ? null : single.size(),
+                            results.get(i).route() == null ? null : results.get(i).route().size(),
+                            engine + " " + pairs.get(i));
+                } else {
+                    assertEquals(single, results.get(i).route(), engine + " " + pairs.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testTableMatchesBfsOnBordersJson() {
+        CompiledGraph graph = new GraphBuilder().getGraph();
+        when(graphBuilder.getGraph()).thenReturn(graph);
+
+        RouteFinder bfsFinder = new RouteFinder(graphBuilder, resolver);
+        ReflectionTestUtils.setField(bfsFinder, "shortestPathEngine", ShortestPathEngine.BFS);
+
+        for (int i = 0; i < graph.size(); i++) {
+            for (int j = 0; j < graph.size(); j++) {
+                String origin = graph.code(i);
+                String destination = graph.code(j);
+
+                assertEquals(bfsFinder.findShortestRoute(origin, destination),
+                        finder.findShortestRoute(origin, destination),
+                        origin + "->" + destination);
+            }
+        }
+    }
+
     // FUZZY ROUTING TESTS
     @Test
     void testFuzzySpnToIta() {
         when(resolver.resolve("SPN")).thenReturn("ESP");
         when(resolver.resolve("ITL")).thenReturn("ITA");
 
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("ESP", List.of("FRA"), "FRA", List.of("ITA"), "ITA", List.of())
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("ESP", List.of("FRA"), "FRA", List.of("ITA"), "ITA", List.of()))
         );
 
         List<String> route = finder.findShortestRouteFuzzy("SPN", "ITL");
@@ -107,8 +264,8 @@ class RouteFinderTest {
         when(resolver.resolve("ESP")).thenReturn("ESP");
         when(resolver.resolve("USA")).thenReturn("USA");
 
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("ESP", List.of("FRA"), "FRA", List.of(), "USA", List.of())
+        when(graphBuilder.getGraph()).thenReturn(
+                CompiledGraph.compile(Map.of("ESP", List.of("FRA"), "FRA", List.of(), "USA", List.of()))
         );
 
         assertNull(finder.findShortestRouteFuzzy("ESP", "USA"));
@@ -120,11 +277,9 @@ class RouteFinderTest {
         when(resolver.resolve("SPN")).thenReturn("ESP");
         when(resolver.resolve("ITA")).thenReturn("ITA");
 
-        when(allRoutesCache.getIfPresent("ESP->ITA")).thenReturn(null);
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(null);
 
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("ESP", List.of("FRA"), "FRA", List.of("ITA"), "ITA", List.of())
-        );
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
 
         List<List<String>> routes =
                 finder.findAllRoutesFuzzy("SPN", "ITA", 5, 10);
@@ -132,7 +287,8 @@ class RouteFinderTest {
         assertEquals(1, routes.size());
         assertEquals(List.of("ESP", "FRA", "ITA"), routes.getFirst());
 
-        verify(allRoutesCache).put(eq("ESP->ITA"), any());
+        verify(allRoutesCache).put(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+        verify(persistence).append(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
     }
 
     @Test
@@ -147,11 +303,9 @@ class RouteFinderTest {
         when(resolver.resolve("ESP")).thenReturn("ESP");
         when(resolver.resolve("USA")).thenReturn("USA");
 
-        when(allRoutesCache.getIfPresent("ESP->USA")).thenReturn(null);
+        when(allRoutesCache.getIfPresent(key("ESP", "USA", ESP_FRA_USA))).thenReturn(null);
 
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("ESP", List.of("FRA"), "FRA", List.of(), "USA", List.of())
-        );
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_USA);
 
         List<List<String>> routes =
                 finder.findAllRoutesFuzzy("ESP", "USA", 5, 10);
@@ -164,12 +318,14 @@ class RouteFinderTest {
         when(resolver.resolve("SPN")).thenReturn("ESP");
         when(resolver.resolve("ITA")).thenReturn("ITA");
 
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
         AllRoutesCacheEntry cached = new AllRoutesCacheEntry(
                 10, 100,
                 List.of(List.of("ESP", "FRA", "ITA"))
         );
 
-        when(allRoutesCache.getIfPresent("ESP->ITA")).thenReturn(cached);
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(cached);
 
         List<List<String>> routes =
                 finder.findAllRoutesFuzzy("SPN", "ITA", 5, 1);
@@ -177,7 +333,49 @@ class RouteFinderTest {
         assertEquals(1, routes.size());
         assertEquals(List.of("ESP", "FRA", "ITA"), routes.getFirst());
 
-        verify(graphBuilder, never()).buildGraph();
+        verify(persistence, never()).append(any(), any());
+    }
+
+    @Test
+    void testStreamAllRoutesFuzzyCachesCompleteResult() {
+        when(resolver.resolve("SPN")).thenReturn("ESP");
+        when(resolver.resolve("ITL")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
+        RouteStream stream = finder.streamAllRoutesFuzzy("SPN", "ITL", 5, 10);
+        List<List<String>> streamed = new ArrayList<>();
+
+        assertEquals(1, stream.forEachRoute(streamed::add));
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA")), streamed);
+        verify(allRoutesCache).put(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+        verify(persistence).append(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+    }
+
+    @Test
+    void testAbandonedStreamIsNotCached() {
+        when(resolver.resolve("ESP")).thenReturn("ESP");
+        when(resolver.resolve("ITA")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
+        assertEquals(1, finder.streamAllRoutesFuzzy("ESP", "ITA", 5, 10).forEachRoute(route -> false));
+
+        verify(allRoutesCache, never()).put(any(), any());
+        verify(persistence, never()).append(any(), any());
+    }
+
+    @Test
+    void testStreamAllRoutesFuzzyReplaysCache() {
+        when(resolver.resolve("ESP")).thenReturn("ESP");
+        when(resolver.resolve("ITA")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(
+                new AllRoutesCacheEntry(10, 100, List.of(List.of("ESP", "FRA", "ITA"))));
+
+        List<List<String>> streamed = new ArrayList<>();
+        finder.streamAllRoutesFuzzy("ESP", "ITA", 5, 10).forEachRoute(streamed::add);
+
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA")), streamed);
+        verify(persistence, never()).append(any(), any());
     }
 
     @Test
@@ -185,13 +383,15 @@ class RouteFinderTest {
         when(resolver.resolve("ESP")).thenReturn("ESP");
         when(resolver.resolve("ITA")).thenReturn("ITA");
 
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
         AllRoutesCacheEntry reverseCached = new AllRoutesCacheEntry(
                 10, 100,
                 List.of(List.of("ITA", "FRA", "ESP"))
         );
 
-        when(allRoutesCache.getIfPresent("ESP->ITA")).thenReturn(null);
-        when(allRoutesCache.getIfPresent("ITA->ESP")).thenReturn(reverseCached);
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(null);
+        when(allRoutesCache.getIfPresent(key("ITA", "ESP", ESP_FRA_ITA))).thenReturn(reverseCached);
 
         List<List<String>> routes =
                 finder.findAllRoutesFuzzy("ESP", "ITA", 5, 10);
@@ -199,8 +399,91 @@ class RouteFinderTest {
         assertEquals(1, routes.size());
         assertEquals(List.of("ESP", "FRA", "ITA"), routes.getFirst());
 
-        verify(graphBuilder, never()).buildGraph();
-        verify(allRoutesCache).put(eq("ESP->ITA"), any());
+        verify(persistence, never()).append(any(), any());
+        verify(allRoutesCache).put(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+    }
+
+    @Test
+    void testReverseCacheHitStoresTheWholeEntry() {
+        when(resolver.resolve("ESP")).thenReturn("ESP");
+        when(resolver.resolve("ITA")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
+        AllRoutesCacheEntry reverseCached = new AllRoutesCacheEntry(10, 100, List.of(
+                List.of("ITA", "FRA", "ESP"),
+                List.of("ITA", "CHE", "FRA", "ESP")));
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(null);
+        when(allRoutesCache.getIfPresent(key("ITA", "ESP", ESP_FRA_ITA))).thenReturn(reverseCached);
+
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA")), finder.findAllRoutesFuzzy("ESP", "ITA", 2, 10));
+
+        ArgumentCaptor<AllRoutesCacheEntry> stored = ArgumentCaptor.forClass(AllRoutesCacheEntry.class);
+        verify(allRoutesCache).put(eq(key("ESP", "ITA", ESP_FRA_ITA)), stored.capture());
+        assertEquals(10, stored.getValue().getMaxDepth());
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA"), List.of("ESP", "FRA", "CHE", "ITA")),
+                stored.getValue().getRoutes());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneSearch() throws Exception {
+        when(resolver.resolve("ESP")).thenReturn("ESP");
+        when(resolver.resolve("ITA")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
+        // The leader's search is done; hold it in the flight while a second request misses
+        CountDownLatch appending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            appending.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(persistence).append(any(), any());
+
+        CompletableFuture<List<List<String>>> leader = new CompletableFuture<>();
+        Thread leaderThread = new Thread(() -> leader.complete(finder.findAllRoutesFuzzy("ESP", "ITA", 5, 10)));
+        leaderThread.start();
+        assertTrue(appending.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<List<List<String>>> waiter = new CompletableFuture<>();
+        Thread waiterThread = new Thread(() -> waiter.complete(finder.findAllRoutesFuzzy("ESP", "ITA", 3, 1)));
+        waiterThread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiterThread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA")), leader.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA")), waiter.get(5, TimeUnit.SECONDS));
+        verify(persistence, times(1)).append(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+        verify(allRoutesCache, times(1)).put(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+    }
+
+    @Test
+    void testAllRoutesCacheIsBuiltWithTheConfiguredBudget() {
+        RouteFinder configured = new RouteFinder(graphBuilder, resolver, DataSize.ofKilobytes(512));
+
+        @SuppressWarnings("unchecked")
+        Cache<String, AllRoutesCacheEntry> cache =
+                (Cache<String, AllRoutesCacheEntry>) ReflectionTestUtils.getField(configured, "allRoutesCache");
+
+        assertEquals(512 * 1024, cache.policy().eviction().orElseThrow().getMaximum());
+    }
+
+    @Test
+    void testMissRechecksTheCacheBeforeSearching() {
+        when(resolver.resolve("ESP")).thenReturn("ESP");
+        when(resolver.resolve("ITA")).thenReturn("ITA");
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
+
+        // Another request's search completes between the lookup and the flight
+        AllRoutesCacheEntry cached = new AllRoutesCacheEntry(10, 100, List.of(List.of("ESP", "FRA", "ITA")));
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(null, cached);
+
+        assertEquals(List.of(List.of("ESP", "FRA", "ITA")), finder.findAllRoutesFuzzy("ESP", "ITA", 5, 10));
+
+        verify(allRoutesCache, never()).put(any(), any());
+        verify(persistence, never()).append(any(), any());
     }
 
     @Test
@@ -213,11 +496,9 @@ class RouteFinderTest {
                 List.of(List.of("ESP", "FRA", "ITA"))
         );
 
-        when(allRoutesCache.getIfPresent("ESP->ITA")).thenReturn(cached);
+        when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(cached);
 
-        when(graphBuilder.buildGraph()).thenReturn(
-                Map.of("ESP", List.of("FRA"), "FRA", List.of("ITA"), "ITA", List.of())
-        );
+        when(graphBuilder.getGraph()).thenReturn(ESP_FRA_ITA);
 
         List<List<String>> routes =
                 finder.findAllRoutesFuzzy("SPN", "ITA", 10, 50);
@@ -225,7 +506,32 @@ class RouteFinderTest {
         assertEquals(1, routes.size());
         assertEquals(List.of("ESP", "FRA", "ITA"), routes.getFirst());
 
-        verify(graphBuilder).buildGraph();
-        verify(allRoutesCache).put(eq("ESP->ITA"), any());
+        verify(graphBuilder).getGraph();
+        verify(allRoutesCache).put(eq(key("ESP", "ITA", ESP_FRA_ITA)), any());
+    }
+
+    @Test
+    void testAllRoutesFuzzyIgnoresEntriesOfOlderSnapshot() {
+        when(resolver.resolve("ESP")).thenReturn("ESP");
+        when(resolver.resolve("ITA")).thenReturn("ITA");
+
+        // Same pair, but the dataset changed: ESP now reaches ITA directly
+        CompiledGraph reloaded = CompiledGraph.compile(
+                Map.of("ESP", List.of("ITA", "FRA"), "FRA", List.of("ITA"), "ITA", List.of())
+        );
+        when(graphBuilder.getGraph()).thenReturn(reloaded);
+        lenient().when(allRoutesCache.getIfPresent(key("ESP", "ITA", ESP_FRA_ITA))).thenReturn(
+                new AllRoutesCacheEntry(10, 100, List.of(List.of("ESP", "FRA", "ITA")))
+        );
+
+        List<List<String>> routes =
+                finder.findAllRoutesFuzzy("ESP", "ITA", 5, 10);
+
+        assertEquals(List.of(List.of("ESP", "ITA"), List.of("ESP", "FRA", "ITA")), routes);
+        verify(allRoutesCache).put(eq(key("ESP", "ITA", reloaded)), any());
+    }
+
+    private static String key(String origin, String destination, CompiledGraph graph) {
+        return origin + "->" + destination + "@" + graph.versionTag();
     }
 }
@@ -0,0 +1,109 @@
+package com.ovidiu.countryrouting.routing;
+
+import com.ovidiu.countryrouting.graph.CompiledGraph;
+import com.ovidiu.countryrouting.graph.GraphBuilder;
+import com.ovidiu.countryrouting.graph.ShortestPathTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortestPathTreesTest {
+
+    private static final CompiledGraph WORLD = new GraphBuilder().getGraph();
+
+    @Test
+    void testForwardTreesMatchBfsOnBordersJson() {
+        for (int origin = 0; origin < WORLD.size(); origin++) {
+            // A fresh cache per origin, so every answer comes from the origin's own tree
+            ShortestPathTrees trees = new ShortestPathTrees(1);
+            for (int destination = 0; destination < WORLD.size(); destination++) {
+                assertArrayEquals(
+                        BreadthFirstSearch.route(WORLD, origin, destination, new SearchStats()),
+                        trees.route(WORLD, origin, destination)
+                );
+            }
+        }
+    }
+
+    @Test
+    void testReversedTreesGiveTheOriginsRouteOnBordersJson() {
+        ShortestPathTable table = WORLD.shortestPaths();
+        int reused = 0;
+        int recomputed = 0;
+
+        for (int destination = 0; destination < WORLD.size(); destination++) {
+            for (int origin = 0; origin < WORLD.size(); origin++) {
+                if (origin == destination || !WORLD.reversible(origin, destination)) continue;
+
+                ShortestPathTrees trees = new ShortestPathTrees(10);
+                trees.tree(WORLD, destination);
+
+                // Whatever is cached, the answer is the one a BFS from the origin gives
+                assertArrayEquals(table.route(origin, destination), trees.route(WORLD, origin, destination));
+                if (trees.size() == 1) {
+                    reused++;
+                } else {
+                    recomputed++;
+                }
+            }
+        }
+        assertTrue(reused > 0);
+        assertTrue(recomputed > 0);
+    }
+
+    @Test
+    void testTiedShortestRoutesAreNotReversed() {
+        // A -> D through B or C; D's BFS meets C first, A's meets B first
+        CompiledGraph diamond = CompiledGraph.compile(Map.of(
+                "A", List.of("B", "C"),
+                "B", List.of("A", "D"),
+                "C", List.of("A", "D"),
+                "D", List.of("C", "B")));
+        ShortestPathTrees trees = new ShortestPathTrees(10);
+        trees.tree(diamond, diamond.id("D"));
+
+        int[] route = trees.route(diamond, diamond.id("A"), diamond.id("D"));
+
+        assertEquals(List.of("A", "B", "D"), diamond.toCodes(route, route.length));
+        assertEquals(2, trees.size());
+    }
+
+    @Test
+    void testOneWayBorderIsNotReversed() {
+        ShortestPathTrees trees = new ShortestPathTrees(10);
+        trees.tree(WORLD, WORLD.id("IND"));
+
+        int[] route = trees.route(WORLD, WORLD.id("LKA"), WORLD.id("IND"));
+
+        assertEquals(List.of("LKA", "IND"), WORLD.toCodes(route, route.length));
+        assertEquals(2, trees.size());
+        assertNull(trees.route(WORLD, WORLD.id("IND"), WORLD.id("LKA")));
+    }
+
+    @Test
+    void testCacheIsBoundedAndVersioned() {
+        ShortestPathTrees trees = new ShortestPathTrees(3);
+        for (int origin = 0; origin < 20; origin++) {
+            trees.tree(WORLD, origin);
+        }
+        assertTrue(trees.size() <= 3);
+
+        trees = new ShortestPathTrees(10);
+        trees.tree(WORLD, WORLD.id("ESP"));
+        CompiledGraph other = CompiledGraph.compile(Map.of("A", List.of("B"), "B", List.of("A")));
+        trees.tree(other, other.id("A"));
+        trees.retain(other);
+        assertEquals(1, trees.size());
+        assertArrayEquals(new int[]{other.id("A"), other.id("B")}, trees.route(other, other.id("A"), other.id("B")));
+    }
+
+    private boolean borders(int from, int to) {
+        for (int e = WORLD.edgeStart(from); e < WORLD.edgeEnd(from); e++) {
+            if (WORLD.neighborAt(e) == to) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ovidiu.countryrouting.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    /** Counted down once a caller has looked at a running flight, i.e. holds it or passed it by. */
+    private final CountDownLatch examined = new CountDownLatch(1);
+
+    /** Parameters are a single limit; a flight covers every smaller or equal limit. */
+    private final SingleFlight<String, Integer, String> flights = new SingleFlight<>((running, requested) -> {
+        examined.countDown();
+        return requested <= running;
+    });
+
+    @Test
+    void testSequentialCallsEachCompute() {
+        AtomicInteger computed = new AtomicInteger();
+
+        assertEquals(new SingleFlight.Result<>("A1", false), flights.run("A", 5, () -> "A" + computed.incrementAndGet()));
+        assertEquals(new SingleFlight.Result<>("A2", false), flights.run("A", 5, () -> "A" + computed.incrementAndGet()));
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testConcurrentCallerSharesTheRunningComputation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computed = new AtomicInteger();
+
+        CompletableFuture<SingleFlight.Result<String>> leader = CompletableFuture.supplyAsync(() ->
+                flights.run("A", 10, () -> {
+                    started.countDown();
+                    await(release);
+                    return "A" + computed.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<SingleFlight.Result<String>> smaller = CompletableFuture.supplyAsync(() ->
+                flights.run("A", 3, () -> "A" + computed.incrementAndGet()));
+        assertTrue(examined.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertEquals(new SingleFlight.Result<>("A1", false), leader.get(5, TimeUnit.SECONDS));
+        assertEquals(new SingleFlight.Result<>("A1", true), smaller.get(5, TimeUnit.SECONDS));
+        assertEquals(1, computed.get());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testLargerRequestComputesOnItsOwn() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<SingleFlight.Result<String>> leader = CompletableFuture.supplyAsync(() ->
+                flights.run("A", 3, () -> {
+                    started.countDown();
+                    await(release);
+                    return "small";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(new SingleFlight.Result<>("large", false), flights.run("A", 10, () -> "large"));
+        assertEquals(new SingleFlight.Result<>("other", false), flights.run("B", 3, () -> "other"));
+        assertNull(flights.join("A", 3), "the larger flight has finished");
+
+        release.countDown();
+        assertEquals("small", leader.get(5, TimeUnit.SECONDS).value());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testFailureReachesWaitersAndIsNotKept() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<SingleFlight.Result<String>> leader = CompletableFuture.supplyAsync(() ->
+                flights.run("A", 10, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("search failed");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> flights.join("A", 10));
+        assertTrue(examined.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        Exception failure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertEquals(new SingleFlight.Result<>("A", false), flights.run("A", 10, () -> "A"));
+    }
+
+    @Test
+    void testJoinWithoutRunningComputation() {
+        assertNull(flights.join("A", 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}